@@ -1,51 +1,53 @@
 //
-// This file was generated by the JavaTM Architecture for XML Binding(JAXB) Reference Implementation, v2.2.8-b130911.1802 
-// See <a href="http://java.sun.com/xml/jaxb">http://java.sun.com/xml/jaxb</a> 
+// This file was generated by the Eclipse Implementation of JAXB, v2.3.9 
+// See https://eclipse-ee4j.github.io/jaxb-ri 
 // Any modifications to this file will be lost upon recompilation of the source schema. 
-// Generated on: 2018.11.15 at 11:37:18 AM CET 
+// Generated on: 2026.10.18 at 04:35:15 PM UTC 
 //
 
 
 package org.opensourcebim.bcf.markup;
 
+import java.time.OffsetDateTime;
 import javax.xml.bind.annotation.XmlAccessType;
 import javax.xml.bind.annotation.XmlAccessorType;
 import javax.xml.bind.annotation.XmlAttribute;
 import javax.xml.bind.annotation.XmlElement;
 import javax.xml.bind.annotation.XmlSchemaType;
 import javax.xml.bind.annotation.XmlType;
-import javax.xml.datatype.XMLGregorianCalendar;
+import javax.xml.bind.annotation.adapters.XmlJavaTypeAdapter;
+import org.opensourcebim.bcf.utils.OffsetDateTimeAdapter;
 
 
 /**
- * <p>Java class for Comment complex type.
+ * <p>Java class for Comment complex type</p>.
  * 
- * <p>The following schema fragment specifies the expected content contained within this class.
+ * <p>The following schema fragment specifies the expected content contained within this class.</p>
  * 
  * <pre>
- * &lt;complexType name="Comment">
- *   &lt;complexContent>
- *     &lt;restriction base="{http://www.w3.org/2001/XMLSchema}anyType">
- *       &lt;sequence>
- *         &lt;element name="Date" type="{http://www.w3.org/2001/XMLSchema}dateTime"/>
- *         &lt;element name="Author" type="{}UserIdType"/>
- *         &lt;element name="Comment" type="{http://www.w3.org/2001/XMLSchema}string"/>
- *         &lt;element name="Viewpoint" minOccurs="0">
- *           &lt;complexType>
- *             &lt;complexContent>
- *               &lt;restriction base="{http://www.w3.org/2001/XMLSchema}anyType">
- *                 &lt;attribute name="Guid" use="required" type="{}Guid" />
- *               &lt;/restriction>
- *             &lt;/complexContent>
- *           &lt;/complexType>
- *         &lt;/element>
- *         &lt;element name="ModifiedDate" type="{http://www.w3.org/2001/XMLSchema}dateTime" minOccurs="0"/>
- *         &lt;element name="ModifiedAuthor" type="{}UserIdType" minOccurs="0"/>
- *       &lt;/sequence>
- *       &lt;attribute name="Guid" use="required" type="{}Guid" />
- *     &lt;/restriction>
- *   &lt;/complexContent>
- * &lt;/complexType>
+ * &lt;complexType name="Comment"&gt;
+ *   &lt;complexContent&gt;
+ *     &lt;restriction base="{http://www.w3.org/2001/XMLSchema}anyType"&gt;
+ *       &lt;sequence&gt;
+ *         &lt;element name="Date" type="{http://www.w3.org/2001/XMLSchema}dateTime"/&gt;
+ *         &lt;element name="Author" type="{}UserIdType"/&gt;
+ *         &lt;element name="Comment" type="{http://www.w3.org/2001/XMLSchema}string"/&gt;
+ *         &lt;element name="Viewpoint" minOccurs="0"&gt;
+ *           &lt;complexType&gt;
+ *             &lt;complexContent&gt;
+ *               &lt;restriction base="{http://www.w3.org/2001/XMLSchema}anyType"&gt;
+ *                 &lt;attribute name="Guid" use="required" type="{}Guid" /&gt;
+ *               &lt;/restriction&gt;
+ *             &lt;/complexContent&gt;
+ *           &lt;/complexType&gt;
+ *         &lt;/element&gt;
+ *         &lt;element name="ModifiedDate" type="{http://www.w3.org/2001/XMLSchema}dateTime" minOccurs="0"/&gt;
+ *         &lt;element name="ModifiedAuthor" type="{}UserIdType" minOccurs="0"/&gt;
+ *       &lt;/sequence&gt;
+ *       &lt;attribute name="Guid" use="required" type="{}Guid" /&gt;
+ *     &lt;/restriction&gt;
+ *   &lt;/complexContent&gt;
+ * &lt;/complexType&gt;
  * </pre>
  * 
  * 
@@ -61,18 +63,20 @@ import javax.xml.datatype.XMLGregorianCalendar;
 })
 public class Comment {
 
-    @XmlElement(name = "Date", required = true)
+    @XmlElement(name = "Date", required = true, type = String.class)
+    @XmlJavaTypeAdapter(OffsetDateTimeAdapter.class)
     @XmlSchemaType(name = "dateTime")
-    protected XMLGregorianCalendar date;
+    protected OffsetDateTime date;
     @XmlElement(name = "Author", required = true)
     protected String author;
     @XmlElement(name = "Comment", required = true)
     protected String comment;
     @XmlElement(name = "Viewpoint")
     protected Comment.Viewpoint viewpoint;
-    @XmlElement(name = "ModifiedDate")
+    @XmlElement(name = "ModifiedDate", type = String.class)
+    @XmlJavaTypeAdapter(OffsetDateTimeAdapter.class)
     @XmlSchemaType(name = "dateTime")
-    protected XMLGregorianCalendar modifiedDate;
+    protected OffsetDateTime modifiedDate;
     @XmlElement(name = "ModifiedAuthor")
     protected String modifiedAuthor;
     @XmlAttribute(name = "Guid", required = true)
@@ -83,10 +87,10 @@ public class Comment {
      * 
      * @return
      *     possible object is
-     *     {@link XMLGregorianCalendar }
+     *     {@link String }
      *     
      */
-    public XMLGregorianCalendar getDate() {
+    public OffsetDateTime getDate() {
         return date;
     }
 
@@ -95,10 +99,10 @@ public class Comment {
      * 
      * @param value
      *     allowed object is
-     *     {@link XMLGregorianCalendar }
+     *     {@link String }
      *     
      */
-    public void setDate(XMLGregorianCalendar value) {
+    public void setDate(OffsetDateTime value) {
         this.date = value;
     }
 
@@ -179,10 +183,10 @@ public class Comment {
      * 
      * @return
      *     possible object is
-     *     {@link XMLGregorianCalendar }
+     *     {@link String }
      *     
      */
-    public XMLGregorianCalendar getModifiedDate() {
+    public OffsetDateTime getModifiedDate() {
         return modifiedDate;
     }
 
@@ -191,10 +195,10 @@ public class Comment {
      * 
      * @param value
      *     allowed object is
-     *     {@link XMLGregorianCalendar }
+     *     {@link String }
      *     
      */
-    public void setModifiedDate(XMLGregorianCalendar value) {
+    public void setModifiedDate(OffsetDateTime value) {
         this.modifiedDate = value;
     }
 
@@ -248,18 +252,18 @@ public class Comment {
 
 
     /**
-     * <p>Java class for anonymous complex type.
+     * <p>Java class for anonymous complex type</p>.
      * 
-     * <p>The following schema fragment specifies the expected content contained within this class.
+     * <p>The following schema fragment specifies the expected content contained within this class.</p>
      * 
      * <pre>
-     * &lt;complexType>
-     *   &lt;complexContent>
-     *     &lt;restriction base="{http://www.w3.org/2001/XMLSchema}anyType">
-     *       &lt;attribute name="Guid" use="required" type="{}Guid" />
-     *     &lt;/restriction>
-     *   &lt;/complexContent>
-     * &lt;/complexType>
+     * &lt;complexType&gt;
+     *   &lt;complexContent&gt;
+     *     &lt;restriction base="{http://www.w3.org/2001/XMLSchema}anyType"&gt;
+     *       &lt;attribute name="Guid" use="required" type="{}Guid" /&gt;
+     *     &lt;/restriction&gt;
+     *   &lt;/complexContent&gt;
+     * &lt;/complexType&gt;
      * </pre>
      * 
      * 
@@ -1,8 +1,8 @@
 //
-// This file was generated by the JavaTM Architecture for XML Binding(JAXB) Reference Implementation, v2.2.8-b130911.1802 
-// See <a href="http://java.sun.com/xml/jaxb">http://java.sun.com/xml/jaxb</a> 
+// This file was generated by the Eclipse Implementation of JAXB, v2.3.9 
+// See https://eclipse-ee4j.github.io/jaxb-ri 
 // Any modifications to this file will be lost upon recompilation of the source schema. 
-// Generated on: 2018.11.15 at 11:37:18 AM CET 
+// Generated on: 2026.10.18 at 04:35:15 PM UTC 
 //
 
 
@@ -18,23 +18,23 @@ import javax.xml.bind.annotation.XmlType;
 
 
 /**
- * <p>Java class for anonymous complex type.
+ * <p>Java class for anonymous complex type</p>.
  * 
- * <p>The following schema fragment specifies the expected content contained within this class.
+ * <p>The following schema fragment specifies the expected content contained within this class.</p>
  * 
  * <pre>
- * &lt;complexType>
- *   &lt;complexContent>
- *     &lt;restriction base="{http://www.w3.org/2001/XMLSchema}anyType">
- *       &lt;sequence>
- *         &lt;element name="Header" type="{}Header" minOccurs="0"/>
- *         &lt;element name="Topic" type="{}Topic"/>
- *         &lt;element name="Comment" type="{}Comment" maxOccurs="unbounded" minOccurs="0"/>
- *         &lt;element name="Viewpoints" type="{}ViewPoint" maxOccurs="unbounded" minOccurs="0"/>
- *       &lt;/sequence>
- *     &lt;/restriction>
- *   &lt;/complexContent>
- * &lt;/complexType>
+ * &lt;complexType&gt;
+ *   &lt;complexContent&gt;
+ *     &lt;restriction base="{http://www.w3.org/2001/XMLSchema}anyType"&gt;
+ *       &lt;sequence&gt;
+ *         &lt;element name="Header" type="{}Header" minOccurs="0"/&gt;
+ *         &lt;element name="Topic" type="{}Topic"/&gt;
+ *         &lt;element name="Comment" type="{}Comment" maxOccurs="unbounded" minOccurs="0"/&gt;
+ *         &lt;element name="Viewpoints" type="{}ViewPoint" maxOccurs="unbounded" minOccurs="0"/&gt;
+ *       &lt;/sequence&gt;
+ *     &lt;/restriction&gt;
+ *   &lt;/complexContent&gt;
+ * &lt;/complexType&gt;
  * </pre>
  * 
  * 
@@ -109,24 +109,27 @@ public class Markup {
     /**
      * Gets the value of the comment property.
      * 
-     * <p>
-     * This accessor method returns a reference to the live list,
+     * <p>This accessor method returns a reference to the live list,
      * not a snapshot. Therefore any modification you make to the
      * returned list will be present inside the JAXB object.
-     * This is why there is not a <CODE>set</CODE> method for the comment property.
+     * This is why there is not a <CODE>set</CODE> method for the comment property.</p>
      * 
      * <p>
      * For example, to add a new item, do as follows:
+     * </p>
      * <pre>
-     *    getComment().add(newItem);
+     * getComment().add(newItem);
      * </pre>
      * 
      * 
      * <p>
      * Objects of the following type(s) are allowed in the list
      * {@link Comment }
+     * </p>
      * 
      * 
+     * @return
+     *     The value of the comment property.
      */
     public List<Comment> getComment() {
         if (comment == null) {
@@ -138,24 +141,27 @@ public class Markup {
     /**
      * Gets the value of the viewpoints property.
      * 
-     * <p>
-     * This accessor method returns a reference to the live list,
+     * <p>This accessor method returns a reference to the live list,
      * not a snapshot. Therefore any modification you make to the
      * returned list will be present inside the JAXB object.
-     * This is why there is not a <CODE>set</CODE> method for the viewpoints property.
+     * This is why there is not a <CODE>set</CODE> method for the viewpoints property.</p>
      * 
      * <p>
      * For example, to add a new item, do as follows:
+     * </p>
      * <pre>
-     *    getViewpoints().add(newItem);
+     * getViewpoints().add(newItem);
      * </pre>
      * 
      * 
      * <p>
      * Objects of the following type(s) are allowed in the list
      * {@link ViewPoint }
+     * </p>
      * 
      * 
+     * @return
+     *     The value of the viewpoints property.
      */
     public List<ViewPoint> getViewpoints() {
         if (viewpoints == null) {
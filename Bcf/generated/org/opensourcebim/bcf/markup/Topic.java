@@ -1,13 +1,14 @@
 //
-// This file was generated by the JavaTM Architecture for XML Binding(JAXB) Reference Implementation, v2.2.8-b130911.1802 
-// See <a href="http://java.sun.com/xml/jaxb">http://java.sun.com/xml/jaxb</a> 
+// This file was generated by the Eclipse Implementation of JAXB, v2.3.9 
+// See https://eclipse-ee4j.github.io/jaxb-ri 
 // Any modifications to this file will be lost upon recompilation of the source schema. 
-// Generated on: 2018.11.15 at 11:37:18 AM CET 
+// Generated on: 2026.10.18 at 04:35:15 PM UTC 
 //
 
 
 package org.opensourcebim.bcf.markup;
 
+import java.time.OffsetDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import javax.xml.bind.annotation.XmlAccessType;
@@ -16,62 +17,63 @@ import javax.xml.bind.annotation.XmlAttribute;
 import javax.xml.bind.annotation.XmlElement;
 import javax.xml.bind.annotation.XmlSchemaType;
 import javax.xml.bind.annotation.XmlType;
-import javax.xml.datatype.XMLGregorianCalendar;
+import javax.xml.bind.annotation.adapters.XmlJavaTypeAdapter;
+import org.opensourcebim.bcf.utils.OffsetDateTimeAdapter;
 
 
 /**
- * <p>Java class for Topic complex type.
+ * <p>Java class for Topic complex type</p>.
  * 
- * <p>The following schema fragment specifies the expected content contained within this class.
+ * <p>The following schema fragment specifies the expected content contained within this class.</p>
  * 
  * <pre>
- * &lt;complexType name="Topic">
- *   &lt;complexContent>
- *     &lt;restriction base="{http://www.w3.org/2001/XMLSchema}anyType">
- *       &lt;sequence>
- *         &lt;element name="ReferenceLink" type="{http://www.w3.org/2001/XMLSchema}string" maxOccurs="unbounded" minOccurs="0"/>
- *         &lt;element name="Title" type="{http://www.w3.org/2001/XMLSchema}string"/>
- *         &lt;element name="Priority" type="{}Priority" minOccurs="0"/>
- *         &lt;element name="Index" type="{http://www.w3.org/2001/XMLSchema}int" minOccurs="0"/>
- *         &lt;element name="Labels" type="{}TopicLabel" maxOccurs="unbounded" minOccurs="0"/>
- *         &lt;element name="CreationDate" type="{http://www.w3.org/2001/XMLSchema}dateTime"/>
- *         &lt;element name="CreationAuthor" type="{}UserIdType"/>
- *         &lt;element name="ModifiedDate" type="{http://www.w3.org/2001/XMLSchema}dateTime" minOccurs="0"/>
- *         &lt;element name="ModifiedAuthor" type="{}UserIdType" minOccurs="0"/>
- *         &lt;element name="DueDate" type="{http://www.w3.org/2001/XMLSchema}dateTime" minOccurs="0"/>
- *         &lt;element name="AssignedTo" type="{}UserIdType" minOccurs="0"/>
- *         &lt;element name="Stage" type="{}Stage" minOccurs="0"/>
- *         &lt;element name="Description" type="{http://www.w3.org/2001/XMLSchema}string" minOccurs="0"/>
- *         &lt;element name="BimSnippet" type="{}BimSnippet" minOccurs="0"/>
- *         &lt;element name="DocumentReference" maxOccurs="unbounded" minOccurs="0">
- *           &lt;complexType>
- *             &lt;complexContent>
- *               &lt;restriction base="{http://www.w3.org/2001/XMLSchema}anyType">
- *                 &lt;sequence>
- *                   &lt;element name="ReferencedDocument" type="{http://www.w3.org/2001/XMLSchema}string" minOccurs="0"/>
- *                   &lt;element name="Description" type="{http://www.w3.org/2001/XMLSchema}string" minOccurs="0"/>
- *                 &lt;/sequence>
- *                 &lt;attGroup ref="{}DocumentReference"/>
- *               &lt;/restriction>
- *             &lt;/complexContent>
- *           &lt;/complexType>
- *         &lt;/element>
- *         &lt;element name="RelatedTopic" maxOccurs="unbounded" minOccurs="0">
- *           &lt;complexType>
- *             &lt;complexContent>
- *               &lt;restriction base="{http://www.w3.org/2001/XMLSchema}anyType">
- *                 &lt;attribute name="Guid" use="required" type="{}Guid" />
- *               &lt;/restriction>
- *             &lt;/complexContent>
- *           &lt;/complexType>
- *         &lt;/element>
- *       &lt;/sequence>
- *       &lt;attribute name="Guid" use="required" type="{}Guid" />
- *       &lt;attribute name="TopicType" type="{}TopicType" />
- *       &lt;attribute name="TopicStatus" type="{}TopicStatus" />
- *     &lt;/restriction>
- *   &lt;/complexContent>
- * &lt;/complexType>
+ * &lt;complexType name="Topic"&gt;
+ *   &lt;complexContent&gt;
+ *     &lt;restriction base="{http://www.w3.org/2001/XMLSchema}anyType"&gt;
+ *       &lt;sequence&gt;
+ *         &lt;element name="ReferenceLink" type="{http://www.w3.org/2001/XMLSchema}string" maxOccurs="unbounded" minOccurs="0"/&gt;
+ *         &lt;element name="Title" type="{http://www.w3.org/2001/XMLSchema}string"/&gt;
+ *         &lt;element name="Priority" type="{}Priority" minOccurs="0"/&gt;
+ *         &lt;element name="Index" type="{http://www.w3.org/2001/XMLSchema}int" minOccurs="0"/&gt;
+ *         &lt;element name="Labels" type="{}TopicLabel" maxOccurs="unbounded" minOccurs="0"/&gt;
+ *         &lt;element name="CreationDate" type="{http://www.w3.org/2001/XMLSchema}dateTime"/&gt;
+ *         &lt;element name="CreationAuthor" type="{}UserIdType"/&gt;
+ *         &lt;element name="ModifiedDate" type="{http://www.w3.org/2001/XMLSchema}dateTime" minOccurs="0"/&gt;
+ *         &lt;element name="ModifiedAuthor" type="{}UserIdType" minOccurs="0"/&gt;
+ *         &lt;element name="DueDate" type="{http://www.w3.org/2001/XMLSchema}dateTime" minOccurs="0"/&gt;
+ *         &lt;element name="AssignedTo" type="{}UserIdType" minOccurs="0"/&gt;
+ *         &lt;element name="Stage" type="{}Stage" minOccurs="0"/&gt;
+ *         &lt;element name="Description" type="{http://www.w3.org/2001/XMLSchema}string" minOccurs="0"/&gt;
+ *         &lt;element name="BimSnippet" type="{}BimSnippet" minOccurs="0"/&gt;
+ *         &lt;element name="DocumentReference" maxOccurs="unbounded" minOccurs="0"&gt;
+ *           &lt;complexType&gt;
+ *             &lt;complexContent&gt;
+ *               &lt;restriction base="{http://www.w3.org/2001/XMLSchema}anyType"&gt;
+ *                 &lt;sequence&gt;
+ *                   &lt;element name="ReferencedDocument" type="{http://www.w3.org/2001/XMLSchema}string" minOccurs="0"/&gt;
+ *                   &lt;element name="Description" type="{http://www.w3.org/2001/XMLSchema}string" minOccurs="0"/&gt;
+ *                 &lt;/sequence&gt;
+ *                 &lt;attGroup ref="{}DocumentReference"/&gt;
+ *               &lt;/restriction&gt;
+ *             &lt;/complexContent&gt;
+ *           &lt;/complexType&gt;
+ *         &lt;/element&gt;
+ *         &lt;element name="RelatedTopic" maxOccurs="unbounded" minOccurs="0"&gt;
+ *           &lt;complexType&gt;
+ *             &lt;complexContent&gt;
+ *               &lt;restriction base="{http://www.w3.org/2001/XMLSchema}anyType"&gt;
+ *                 &lt;attribute name="Guid" use="required" type="{}Guid" /&gt;
+ *               &lt;/restriction&gt;
+ *             &lt;/complexContent&gt;
+ *           &lt;/complexType&gt;
+ *         &lt;/element&gt;
+ *       &lt;/sequence&gt;
+ *       &lt;attribute name="Guid" use="required" type="{}Guid" /&gt;
+ *       &lt;attribute name="TopicType" type="{}TopicType" /&gt;
+ *       &lt;attribute name="TopicStatus" type="{}TopicStatus" /&gt;
+ *     &lt;/restriction&gt;
+ *   &lt;/complexContent&gt;
+ * &lt;/complexType&gt;
  * </pre>
  * 
  * 
@@ -107,19 +109,22 @@ public class Topic {
     protected Integer index;
     @XmlElement(name = "Labels")
     protected List<String> labels;
-    @XmlElement(name = "CreationDate", required = true)
+    @XmlElement(name = "CreationDate", required = true, type = String.class)
+    @XmlJavaTypeAdapter(OffsetDateTimeAdapter.class)
     @XmlSchemaType(name = "dateTime")
-    protected XMLGregorianCalendar creationDate;
+    protected OffsetDateTime creationDate;
     @XmlElement(name = "CreationAuthor", required = true)
     protected String creationAuthor;
-    @XmlElement(name = "ModifiedDate")
+    @XmlElement(name = "ModifiedDate", type = String.class)
+    @XmlJavaTypeAdapter(OffsetDateTimeAdapter.class)
     @XmlSchemaType(name = "dateTime")
-    protected XMLGregorianCalendar modifiedDate;
+    protected OffsetDateTime modifiedDate;
     @XmlElement(name = "ModifiedAuthor")
     protected String modifiedAuthor;
-    @XmlElement(name = "DueDate")
+    @XmlElement(name = "DueDate", type = String.class)
+    @XmlJavaTypeAdapter(OffsetDateTimeAdapter.class)
     @XmlSchemaType(name = "dateTime")
-    protected XMLGregorianCalendar dueDate;
+    protected OffsetDateTime dueDate;
     @XmlElement(name = "AssignedTo")
     protected String assignedTo;
     @XmlElement(name = "Stage")
@@ -142,24 +147,27 @@ public class Topic {
     /**
      * Gets the value of the referenceLink property.
      * 
-     * <p>
-     * This accessor method returns a reference to the live list,
+     * <p>This accessor method returns a reference to the live list,
      * not a snapshot. Therefore any modification you make to the
      * returned list will be present inside the JAXB object.
-     * This is why there is not a <CODE>set</CODE> method for the referenceLink property.
+     * This is why there is not a <CODE>set</CODE> method for the referenceLink property.</p>
      * 
      * <p>
      * For example, to add a new item, do as follows:
+     * </p>
      * <pre>
-     *    getReferenceLink().add(newItem);
+     * getReferenceLink().add(newItem);
      * </pre>
      * 
      * 
      * <p>
      * Objects of the following type(s) are allowed in the list
      * {@link String }
+     * </p>
      * 
      * 
+     * @return
+     *     The value of the referenceLink property.
      */
     public List<String> getReferenceLink() {
         if (referenceLink == null) {
@@ -243,24 +251,27 @@ public class Topic {
     /**
      * Gets the value of the labels property.
      * 
-     * <p>
-     * This accessor method returns a reference to the live list,
+     * <p>This accessor method returns a reference to the live list,
      * not a snapshot. Therefore any modification you make to the
      * returned list will be present inside the JAXB object.
-     * This is why there is not a <CODE>set</CODE> method for the labels property.
+     * This is why there is not a <CODE>set</CODE> method for the labels property.</p>
      * 
      * <p>
      * For example, to add a new item, do as follows:
+     * </p>
      * <pre>
-     *    getLabels().add(newItem);
+     * getLabels().add(newItem);
      * </pre>
      * 
      * 
      * <p>
      * Objects of the following type(s) are allowed in the list
      * {@link String }
+     * </p>
      * 
      * 
+     * @return
+     *     The value of the labels property.
      */
     public List<String> getLabels() {
         if (labels == null) {
@@ -274,10 +285,10 @@ public class Topic {
      * 
      * @return
      *     possible object is
-     *     {@link XMLGregorianCalendar }
+     *     {@link String }
      *     
      */
-    public XMLGregorianCalendar getCreationDate() {
+    public OffsetDateTime getCreationDate() {
         return creationDate;
     }
 
@@ -286,10 +297,10 @@ public class Topic {
      * 
      * @param value
      *     allowed object is
-     *     {@link XMLGregorianCalendar }
+     *     {@link String }
      *     
      */
-    public void setCreationDate(XMLGregorianCalendar value) {
+    public void setCreationDate(OffsetDateTime value) {
         this.creationDate = value;
     }
 
@@ -322,10 +333,10 @@ public class Topic {
      * 
      * @return
      *     possible object is
-     *     {@link XMLGregorianCalendar }
+     *     {@link String }
      *     
      */
-    public XMLGregorianCalendar getModifiedDate() {
+    public OffsetDateTime getModifiedDate() {
         return modifiedDate;
     }
 
@@ -334,10 +345,10 @@ public class Topic {
      * 
      * @param value
      *     allowed object is
-     *     {@link XMLGregorianCalendar }
+     *     {@link String }
      *     
      */
-    public void setModifiedDate(XMLGregorianCalendar value) {
+    public void setModifiedDate(OffsetDateTime value) {
         this.modifiedDate = value;
     }
 
@@ -370,10 +381,10 @@ public class Topic {
      * 
      * @return
      *     possible object is
-     *     {@link XMLGregorianCalendar }
+     *     {@link String }
      *     
      */
-    public XMLGregorianCalendar getDueDate() {
+    public OffsetDateTime getDueDate() {
         return dueDate;
     }
 
@@ -382,10 +393,10 @@ public class Topic {
      * 
      * @param value
      *     allowed object is
-     *     {@link XMLGregorianCalendar }
+     *     {@link String }
      *     
      */
-    public void setDueDate(XMLGregorianCalendar value) {
+    public void setDueDate(OffsetDateTime value) {
         this.dueDate = value;
     }
 
@@ -488,24 +499,27 @@ public class Topic {
     /**
      * Gets the value of the documentReference property.
      * 
-     * <p>
-     * This accessor method returns a reference to the live list,
+     * <p>This accessor method returns a reference to the live list,
      * not a snapshot. Therefore any modification you make to the
      * returned list will be present inside the JAXB object.
-     * This is why there is not a <CODE>set</CODE> method for the documentReference property.
+     * This is why there is not a <CODE>set</CODE> method for the documentReference property.</p>
      * 
      * <p>
      * For example, to add a new item, do as follows:
+     * </p>
      * <pre>
-     *    getDocumentReference().add(newItem);
+     * getDocumentReference().add(newItem);
      * </pre>
      * 
      * 
      * <p>
      * Objects of the following type(s) are allowed in the list
      * {@link Topic.DocumentReference }
+     * </p>
      * 
      * 
+     * @return
+     *     The value of the documentReference property.
      */
     public List<Topic.DocumentReference> getDocumentReference() {
         if (documentReference == null) {
@@ -517,24 +531,27 @@ public class Topic {
     /**
      * Gets the value of the relatedTopic property.
      * 
-     * <p>
-     * This accessor method returns a reference to the live list,
+     * <p>This accessor method returns a reference to the live list,
      * not a snapshot. Therefore any modification you make to the
      * returned list will be present inside the JAXB object.
-     * This is why there is not a <CODE>set</CODE> method for the relatedTopic property.
+     * This is why there is not a <CODE>set</CODE> method for the relatedTopic property.</p>
      * 
      * <p>
      * For example, to add a new item, do as follows:
+     * </p>
      * <pre>
-     *    getRelatedTopic().add(newItem);
+     * getRelatedTopic().add(newItem);
      * </pre>
      * 
      * 
      * <p>
      * Objects of the following type(s) are allowed in the list
      * {@link Topic.RelatedTopic }
+     * </p>
      * 
      * 
+     * @return
+     *     The value of the relatedTopic property.
      */
     public List<Topic.RelatedTopic> getRelatedTopic() {
         if (relatedTopic == null) {
@@ -617,22 +634,22 @@ public class Topic {
 
 
     /**
-     * <p>Java class for anonymous complex type.
+     * <p>Java class for anonymous complex type</p>.
      * 
-     * <p>The following schema fragment specifies the expected content contained within this class.
+     * <p>The following schema fragment specifies the expected content contained within this class.</p>
      * 
      * <pre>
-     * &lt;complexType>
-     *   &lt;complexContent>
-     *     &lt;restriction base="{http://www.w3.org/2001/XMLSchema}anyType">
-     *       &lt;sequence>
-     *         &lt;element name="ReferencedDocument" type="{http://www.w3.org/2001/XMLSchema}string" minOccurs="0"/>
-     *         &lt;element name="Description" type="{http://www.w3.org/2001/XMLSchema}string" minOccurs="0"/>
-     *       &lt;/sequence>
-     *       &lt;attGroup ref="{}DocumentReference"/>
-     *     &lt;/restriction>
-     *   &lt;/complexContent>
-     * &lt;/complexType>
+     * &lt;complexType&gt;
+     *   &lt;complexContent&gt;
+     *     &lt;restriction base="{http://www.w3.org/2001/XMLSchema}anyType"&gt;
+     *       &lt;sequence&gt;
+     *         &lt;element name="ReferencedDocument" type="{http://www.w3.org/2001/XMLSchema}string" minOccurs="0"/&gt;
+     *         &lt;element name="Description" type="{http://www.w3.org/2001/XMLSchema}string" minOccurs="0"/&gt;
+     *       &lt;/sequence&gt;
+     *       &lt;attGroup ref="{}DocumentReference"/&gt;
+     *     &lt;/restriction&gt;
+     *   &lt;/complexContent&gt;
+     * &lt;/complexType&gt;
      * </pre>
      * 
      * 
@@ -757,18 +774,18 @@ public class Topic {
 
 
     /**
-     * <p>Java class for anonymous complex type.
+     * <p>Java class for anonymous complex type</p>.
      * 
-     * <p>The following schema fragment specifies the expected content contained within this class.
+     * <p>The following schema fragment specifies the expected content contained within this class.</p>
      * 
      * <pre>
-     * &lt;complexType>
-     *   &lt;complexContent>
-     *     &lt;restriction base="{http://www.w3.org/2001/XMLSchema}anyType">
-     *       &lt;attribute name="Guid" use="required" type="{}Guid" />
-     *     &lt;/restriction>
-     *   &lt;/complexContent>
-     * &lt;/complexType>
+     * &lt;complexType&gt;
+     *   &lt;complexContent&gt;
+     *     &lt;restriction base="{http://www.w3.org/2001/XMLSchema}anyType"&gt;
+     *       &lt;attribute name="Guid" use="required" type="{}Guid" /&gt;
+     *     &lt;/restriction&gt;
+     *   &lt;/complexContent&gt;
+     * &lt;/complexType&gt;
      * </pre>
      * 
      * 
@@ -0,0 +1,161 @@
+package org.opensourcebim.bcf;
+
+/******************************************************************************
+ * Copyright (C) 2009-2018  BIMserver.org
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see {@literal<http://www.gnu.org/licenses/>}.
+ *****************************************************************************/
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import javax.xml.bind.JAXBException;
+
+import org.apache.commons.io.IOUtils;
+import org.opensourcebim.bcf.zip.RawZipEntry;
+import org.opensourcebim.bcf.zip.ZipDirectory;
+
+/**
+ * Random access to the entries of a BCF file on disk. Only the central
+ * directory is read when the archive is opened, entries are inflated when they
+ * are requested.
+ */
+class BcfArchive implements Closeable {
+	private final Path path;
+	private ZipFile zipFile;
+	private FileChannel fileChannel;
+	private ZipDirectory zipDirectory;
+
+	BcfArchive(Path path) throws IOException {
+		this.path = path;
+		this.zipFile = new ZipFile(path.toFile());
+	}
+
+	Path getPath() {
+		return path;
+	}
+
+	List<String> getEntryNames() {
+		List<String> names = new ArrayList<>(zipFile.size());
+		Enumeration<? extends ZipEntry> entries = zipFile.entries();
+		while (entries.hasMoreElements()) {
+			names.add(entries.nextElement().getName());
+		}
+		return names;
+	}
+
+	boolean contains(String name) {
+		return zipFile.getEntry(name) != null;
+	}
+
+	long getSize(String name) {
+		ZipEntry zipEntry = zipFile.getEntry(name);
+		return zipEntry == null ? -1 : zipEntry.getSize();
+	}
+
+	InputStream getInputStream(String name) throws IOException {
+		ZipEntry zipEntry = zipFile.getEntry(name);
+		if (zipEntry == null) {
+			throw new IOException("No entry " + name + " in " + path);
+		}
+		return zipFile.getInputStream(zipEntry);
+	}
+
+	byte[] read(String name) throws IOException {
+		try (InputStream inputStream = getInputStream(name)) {
+			return IOUtils.toByteArray(inputStream);
+		}
+	}
+
+	byte[] readUnchecked(String name) {
+		try {
+			return read(name);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	Object unmarshal(String name, BcfSchema schema) throws IOException, JAXBException {
+		return unmarshal(name, schema, ReadOptions.DEFAULT);
+	}
+
+	Object unmarshal(String name, BcfSchema schema, ReadOptions readOptions) throws IOException, JAXBException {
+		try (InputStream inputStream = getInputStream(name)) {
+			return schema.unmarshal(inputStream, readOptions);
+		}
+	}
+
+	Object unmarshalUnchecked(String name, BcfSchema schema, ReadOptions readOptions) {
+		try {
+			return unmarshal(name, schema, readOptions);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		} catch (JAXBException e) {
+			throw new IllegalStateException("Could not parse " + name + " in " + path, e);
+		}
+	}
+
+	/**
+	 * The still compressed data of an entry, to be written under the given
+	 * name, or null when the entry cannot be copied as is.
+	 */
+	RawZipEntry getRawEntry(String name, String targetName) throws IOException {
+		ZipDirectory.Entry entry = getZipDirectory().getEntry(name);
+		if (entry == null || entry.isEncrypted()) {
+			return null;
+		}
+		return entry.toRawZipEntry(targetName);
+	}
+
+	synchronized ZipDirectory getZipDirectory() throws IOException {
+		if (zipDirectory == null) {
+			fileChannel = FileChannel.open(path, StandardOpenOption.READ);
+			zipDirectory = new ZipDirectory(fileChannel);
+		}
+		return zipDirectory;
+	}
+
+	/**
+	 * Reads the central directory again after the file has been changed.
+	 */
+	synchronized void reopen() throws IOException {
+		close();
+		zipFile = new ZipFile(path.toFile());
+		fileChannel = null;
+		zipDirectory = null;
+	}
+
+	@Override
+	public void close() throws IOException {
+		try {
+			zipFile.close();
+		} finally {
+			synchronized (this) {
+				if (fileChannel != null) {
+					fileChannel.close();
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,109 @@
+package org.opensourcebim.bcf;
+
+/******************************************************************************
+ * Copyright (C) 2009-2018  BIMserver.org
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see {@literal<http://www.gnu.org/licenses/>}.
+ *****************************************************************************/
+
+import java.time.Duration;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+
+import org.opensourcebim.bcf.markup.Markup;
+import org.opensourcebim.bcf.project.ProjectExtension;
+import org.opensourcebim.bcf.version.Version;
+import org.opensourcebim.bcf.visinfo.VisualizationInfo;
+
+/**
+ * The JAXBContext shared by all documents of BCF files, built once for the
+ * markup, visinfo, project and version schemas. It is created when the first
+ * document is read or written, {@link #warmUp()} does that and initializes the
+ * (un)marshallers up front for processes where the first call has to be fast.
+ */
+public final class BcfContext {
+	private static final BcfContext INSTANCE = new BcfContext();
+
+	private volatile JAXBContext jaxbContext;
+	private volatile Duration creationTime;
+	private volatile Duration warmUpTime;
+
+	private BcfContext() {
+	}
+
+	public static BcfContext get() {
+		return INSTANCE;
+	}
+
+	public JAXBContext getJaxbContext() throws JAXBException {
+		JAXBContext result = jaxbContext;
+		if (result == null) {
+			synchronized (this) {
+				result = jaxbContext;
+				if (result == null) {
+					long start = System.nanoTime();
+					result = JAXBContext.newInstance(Markup.class, VisualizationInfo.class, ProjectExtension.class, Version.class);
+					creationTime = Duration.ofNanos(System.nanoTime() - start);
+					jaxbContext = result;
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Creates the context when needed and runs a small document of every
+	 * schema through a marshaller and an unmarshaller, which are kept for the
+	 * files that are read and written afterwards.
+	 */
+	public synchronized BcfContext warmUp() throws JAXBException {
+		if (warmUpTime == null) {
+			getJaxbContext();
+			long start = System.nanoTime();
+			for (BcfSchema schema : BcfSchema.values()) {
+				schema.warmUp();
+			}
+			warmUpTime = Duration.ofNanos(System.nanoTime() - start);
+		}
+		return this;
+	}
+
+	public boolean isWarmedUp() {
+		return warmUpTime != null;
+	}
+
+	/**
+	 * How long building the JAXBContext took, or null when it has not been
+	 * built yet.
+	 */
+	public Duration getCreationTime() {
+		return creationTime;
+	}
+
+	/**
+	 * How long the warm-up took on top of building the context, or null when
+	 * {@link #warmUp()} has not been called.
+	 */
+	public Duration getWarmUpTime() {
+		return warmUpTime;
+	}
+
+	@Override
+	public String toString() {
+		Duration creationTime = this.creationTime;
+		Duration warmUpTime = this.warmUpTime;
+		return "BcfContext created " + (creationTime == null ? "not yet" : "in " + creationTime.toMillis() + " ms") + ", warmed up " + (warmUpTime == null ? "not yet" : "in " + warmUpTime.toMillis() + " ms");
+	}
+}
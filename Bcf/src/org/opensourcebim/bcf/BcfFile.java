@@ -20,95 +20,76 @@ import java.io.ByteArrayInputStream;
  *****************************************************************************/
 
 import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.zip.CRC32;
 import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
 import java.util.zip.ZipInputStream;
-import java.util.zip.ZipOutputStream;
 
-import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBException;
-import javax.xml.bind.Marshaller;
-import javax.xml.bind.Unmarshaller;
-import javax.xml.datatype.XMLGregorianCalendar;
 
 import org.apache.commons.io.IOUtils;
-import org.opensourcebim.bcf.markup.BimSnippet;
-import org.opensourcebim.bcf.markup.Comment;
-import org.opensourcebim.bcf.markup.Comment.Viewpoint;
-import org.opensourcebim.bcf.markup.Header;
+import org.opensourcebim.bcf.attachment.AttachmentStore;
 import org.opensourcebim.bcf.markup.Markup;
 import org.opensourcebim.bcf.markup.Topic;
-import org.opensourcebim.bcf.markup.Topic.DocumentReference;
-import org.opensourcebim.bcf.markup.Topic.RelatedTopic;
-import org.opensourcebim.bcf.markup.ViewPoint;
 import org.opensourcebim.bcf.project.Project;
 import org.opensourcebim.bcf.project.ProjectExtension;
 import org.opensourcebim.bcf.utils.FakeClosingInputStream;
 import org.opensourcebim.bcf.version.Version;
 import org.opensourcebim.bcf.visinfo.VisualizationInfo;
+import org.opensourcebim.bcf.zip.RawZipEntry;
+import org.opensourcebim.bcf.zip.ZipDirectory;
+import org.opensourcebim.bcf.zip.ZipWriter;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
 
-public class BcfFile {
-	private static Unmarshaller MARKUP_UNMARSHALLER;
-	private static Unmarshaller VISUALIZATION_INFO_UNMARSHALLER;
-	private static Unmarshaller PROJECT_UNMARSHALLER;
-	private static Unmarshaller VERSION_UNMARSHALLER;
-	private static Marshaller PROJECT_MARSHALLER;
-	private static Marshaller VERSION_MARSHALLER;
+public class BcfFile implements Closeable {
 	private final Map<UUID, TopicFolder> topicFolders = new LinkedHashMap<UUID, TopicFolder>();
+	private final List<IfcFileReference> ifcFileReferences = new ArrayList<>();
 	private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
 
-	private Project project;
+	private ProjectExtension projectExtension;
+	private long projectCrc = -1;
 	private Version version;
+	private BcfArchive archive;
+	private AttachmentStore attachmentStore = AttachmentStore.HEAP;
+	private final TopicQueryEngine queryEngine = new TopicQueryEngine(this);
+	private int modificationCount;
+	private ComponentIndex componentIndex;
+	private ReadOptions readOptions = ReadOptions.DEFAULT;
+	private long componentIndexStamp;
 
-	static {
-		try {
-			JAXBContext jaxbContext = JAXBContext.newInstance(Markup.class);
-			MARKUP_UNMARSHALLER = jaxbContext.createUnmarshaller();
-			
-			jaxbContext = JAXBContext.newInstance(VisualizationInfo.class);
-			VISUALIZATION_INFO_UNMARSHALLER = jaxbContext.createUnmarshaller();
-
-			jaxbContext = JAXBContext.newInstance(ProjectExtension.class);
-			PROJECT_UNMARSHALLER = jaxbContext.createUnmarshaller();
-			PROJECT_MARSHALLER = jaxbContext.createMarshaller();
-			PROJECT_MARSHALLER.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, true);
-			
-			jaxbContext = JAXBContext.newInstance(Version.class);
-			VERSION_UNMARSHALLER = jaxbContext.createUnmarshaller();
-			VERSION_MARSHALLER = jaxbContext.createMarshaller();
-			VERSION_MARSHALLER.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, true);
-
-		} catch (JAXBException e) {
-			e.printStackTrace();
-		}
-	}
-	
 	public BcfFile() {
 	}
 
 	public static BcfFile read(File file) throws BcfException, IOException {
-		FileInputStream inputStream = new FileInputStream(file);
-		try {
-			return read(inputStream);
-		} finally {
-			inputStream.close();
-		}
+		return read(file.toPath());
 	}
 
 	public static BcfFile read(byte[] data) throws BcfException, IOException {
@@ -118,55 +99,57 @@ public class BcfFile {
 	}
 
 	private void readInternal(InputStream inputStream, ReadOptions readOptions) throws BcfException {
+		setAttachmentStore(readOptions.getAttachmentStore());
+		this.readOptions = readOptions;
+		Executor executor = readOptions.getExecutor();
+		List<ParseTask> parseTasks = new ArrayList<>();
 		try (ZipInputStream zipInputStream = new ZipInputStream(inputStream)) {
 			for (ZipEntry zipEntry = zipInputStream.getNextEntry(); zipEntry != null; zipEntry = zipInputStream.getNextEntry()) {
 				String name = zipEntry.getName();
+				if (!readOptions.isIncluded(name)) {
+					continue;
+				}
 				if (name.contains("/")) {
-					String uuidString = name.substring(0, name.indexOf("/"));
-					UUID uuid = UUID.fromString(uuidString);
-					TopicFolder issue = topicFolders.get(uuid);
-					if (issue == null) {
-						issue = new TopicFolder(uuid);
-						topicFolders.put(uuid, issue);
-					}
+					TopicFolder issue = getOrCreateTopicFolder(name);
 					if (zipEntry.getName().endsWith(".bcf")) {
-						try {
-							issue.setMarkup((Markup) MARKUP_UNMARSHALLER.unmarshal(new FakeClosingInputStream(zipInputStream)));
-						} catch (JAXBException e) {
-							throw new BcfException(e);
+						if (executor != null) {
+							parseTasks.add(new ParseTask(issue, name, BcfSchema.MARKUP, IOUtils.toByteArray(zipInputStream), readOptions, executor));
+						} else {
+							try {
+								issue.setLoadedMarkup((Markup) BcfSchema.MARKUP.unmarshal(new FakeClosingInputStream(zipInputStream), readOptions));
+							} catch (JAXBException e) {
+								throw new BcfException(e);
+							}
 						}
 					} else if (zipEntry.getName().endsWith(".bcfv")) {
-						if (readOptions.isReadViewPoints()) {
+						if (executor != null) {
+							parseTasks.add(new ParseTask(issue, name, BcfSchema.VISUALIZATION_INFO, IOUtils.toByteArray(zipInputStream), readOptions, executor));
+						} else {
 							try {
-								issue.setVisualizationInfo((VisualizationInfo) VISUALIZATION_INFO_UNMARSHALLER.unmarshal(new FakeClosingInputStream(zipInputStream)));
+								issue.setVisualizationInfo(name, (VisualizationInfo) BcfSchema.VISUALIZATION_INFO.unmarshal(new FakeClosingInputStream(zipInputStream), readOptions));
 							} catch (JAXBException e) {
 								throw new BcfException(e);
 							}
 						}
-					} else if (zipEntry.getName().endsWith("snapshot.png")) {
-						ByteArrayOutputStream baos = new ByteArrayOutputStream();
-						IOUtils.copy(zipInputStream, baos);
-						issue.setDefaultSnapShot(baos.toByteArray());
-						issue.addSnapShot(zipEntry.getName(), baos.toByteArray());
-					} else if (zipEntry.getName().endsWith(".png")) {
-						ByteArrayOutputStream baos = new ByteArrayOutputStream();
-						IOUtils.copy(zipInputStream, baos);
-						issue.addSnapShot(zipEntry.getName(), baos.toByteArray());
+					} else if (TopicFolder.isImage(name)) {
+						issue.addSnapShot(name, IOUtils.toByteArray(zipInputStream));
 					}
 				} else {
 					if (name.equals("project.bcfp")) {
 						try {
-							project = ((ProjectExtension) PROJECT_UNMARSHALLER.unmarshal(new FakeClosingInputStream(zipInputStream))).getProject();
+							projectExtension = (ProjectExtension) BcfSchema.PROJECT.unmarshal(new FakeClosingInputStream(zipInputStream));
 						} catch (JAXBException e) {
 							throw new BcfException(e);
 						}
 					} else if (name.equals("bcf.version")) {
 						try {
-							setVersion((Version) VERSION_UNMARSHALLER.unmarshal(new FakeClosingInputStream(zipInputStream)));
+							setVersion((Version) BcfSchema.VERSION.unmarshal(new FakeClosingInputStream(zipInputStream)));
 						} catch (JAXBException e) {
 							e.printStackTrace();
 						}
-					} else if (name.equals("extensions.xsd") || name.endsWith("ifc")) {
+					} else if (name.endsWith("ifc")) {
+						ifcFileReferences.add(new IfcFileReference(null, name, zipEntry.getSize()));
+					} else if (name.equals("extensions.xsd")) {
 						// ignoring
 					} else {
 						throw new BcfException("Unexpected zipfile content " + name);
@@ -174,21 +157,135 @@ public class BcfFile {
 				}
 			}
 			zipInputStream.close();
+			for (ParseTask parseTask : parseTasks) {
+				parseTask.apply();
+			}
 		} catch (IOException e) {
 			throw new BcfException(e);
+		} finally {
+			for (ParseTask parseTask : parseTasks) {
+				parseTask.cancel(false);
+			}
+		}
+	}
+
+	private void openInternal(BcfArchive archive, ReadOptions readOptions) throws BcfException {
+		this.archive = archive;
+		setAttachmentStore(readOptions.getAttachmentStore());
+		this.readOptions = readOptions;
+		try {
+			for (String name : archive.getEntryNames()) {
+				if (!readOptions.isIncluded(name)) {
+					continue;
+				}
+				if (name.contains("/")) {
+					TopicFolder issue = getOrCreateTopicFolder(name);
+					issue.setArchive(archive);
+					if (name.endsWith(".bcf")) {
+						issue.setMarkupEntry(name);
+					} else if (name.endsWith(".bcfv")) {
+						issue.addVisualizationInfoEntry(name);
+					} else if (TopicFolder.isImage(name)) {
+						issue.addSnapShotEntry(name);
+					}
+				} else {
+					if (name.equals("project.bcfp")) {
+						try (InputStream inputStream = archive.getInputStream(name)) {
+							projectExtension = (ProjectExtension) BcfSchema.PROJECT.unmarshal(inputStream);
+						}
+						projectCrc = crc(BcfWriter.marshal(BcfSchema.PROJECT, projectExtension));
+					} else if (name.equals("bcf.version")) {
+						try (InputStream inputStream = archive.getInputStream(name)) {
+							setVersion((Version) BcfSchema.VERSION.unmarshal(inputStream));
+						} catch (JAXBException e) {
+							e.printStackTrace();
+						}
+					} else if (name.endsWith("ifc")) {
+						ifcFileReferences.add(new IfcFileReference(archive.getPath(), name, archive.getSize(name)));
+					} else if (name.equals("extensions.xsd")) {
+						// ignoring
+					} else {
+						throw new BcfException("Unexpected zipfile content " + name);
+					}
+				}
+			}
+		} catch (JAXBException e) {
+			throw new BcfException(e);
+		} catch (IOException e) {
+			throw new BcfException(e);
+		}
+	}
+
+	/**
+	 * Unmarshals the raw bytes of a markup or viewpoint on an executor, the
+	 * result is assigned to its topic folder in archive order by apply().
+	 */
+	private static class ParseTask extends FutureTask<Object> {
+		private final TopicFolder topicFolder;
+		private final String entryName;
+
+		ParseTask(TopicFolder topicFolder, String entryName, BcfSchema schema, byte[] data, ReadOptions readOptions, Executor executor) {
+			super(() -> schema.unmarshal(new ByteArrayInputStream(data), readOptions));
+			this.topicFolder = topicFolder;
+			this.entryName = entryName;
+			executor.execute(this);
+		}
+
+		void apply() throws BcfException {
+			try {
+				Object result = get();
+				if (result instanceof Markup) {
+					topicFolder.setLoadedMarkup((Markup) result);
+				} else {
+					topicFolder.setVisualizationInfo(entryName, (VisualizationInfo) result);
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new BcfException(e);
+			} catch (ExecutionException e) {
+				if (e.getCause() instanceof Exception) {
+					throw new BcfException((Exception) e.getCause());
+				}
+				throw new BcfException(e);
+			}
 		}
 	}
 
-	private void setVersion(Version version) {
+	private TopicFolder getOrCreateTopicFolder(String entryName) {
+		UUID uuid = UUID.fromString(entryName.substring(0, entryName.indexOf("/")));
+		TopicFolder topicFolder = topicFolders.get(uuid);
+		if (topicFolder == null) {
+			topicFolder = new TopicFolder(uuid);
+			topicFolder.setAttachmentStore(attachmentStore);
+			topicFolder.setReadOptions(readOptions);
+			topicFolders.put(uuid, topicFolder);
+			modificationCount++;
+		}
+		return topicFolder;
+	}
+
+	void setVersion(Version version) {
 		this.version = version;
 	}
 
+	/**
+	 * Where the snapshots of topic folders created by this file are held.
+	 */
+	public void setAttachmentStore(AttachmentStore attachmentStore) {
+		this.attachmentStore = attachmentStore;
+	}
+
+	public AttachmentStore getAttachmentStore() {
+		return attachmentStore;
+	}
+
 	public Version getVersion() {
 		return version;
 	}
 
 	public void addTopicFolder(TopicFolder topicFolder) {
 		topicFolders.put(topicFolder.getUuid(), topicFolder);
+		modificationCount++;
 	}
 
 	public static BcfFile read(InputStream inputStream) throws BcfException {
@@ -204,35 +301,25 @@ public class BcfFile {
 	}
 
 	public void write(OutputStream outputStream) throws BcfException, IOException {
-		ZipOutputStream zipOutputStream = new ZipOutputStream(outputStream);
+		write(outputStream, WriteOptions.DEFAULT);
+	}
 
-		if (project != null) {
-			zipOutputStream.putNextEntry(new ZipEntry("project.bcfp"));
-			try {
-				ProjectExtension projectExtension = new ProjectExtension();
-				projectExtension.setProject(project);
-				PROJECT_MARSHALLER.marshal(projectExtension, zipOutputStream);
-			} catch (JAXBException e) {
-				throw new BcfException(e);
+	/**
+	 * Writes this BCF file. Every entry of a file opened with
+	 * {@link #open(Path)} that is not written from this BcfFile is copied from
+	 * it, like embedded models, extension schemas, parts left out by the read
+	 * options and files in topic folders that are not read at all. Entries
+	 * left out while reading a file with {@link #read(Path)} are not written.
+	 */
+	public void write(OutputStream outputStream, WriteOptions writeOptions) throws BcfException, IOException {
+		try (BcfWriter bcfWriter = new BcfWriter(outputStream, projectExtension, writeOptions)) {
+			bcfWriter.writeAll(topicFolders.values());
+			if (archive != null) {
+				for (String name : archive.getEntryNames()) {
+					bcfWriter.copy(archive, name);
+				}
 			}
 		}
-
-		Version version = new Version();
-		version.setVersionId("2.1");
-		version.setDetailedVersion("2.1");
-
-		zipOutputStream.putNextEntry(new ZipEntry("bcf.version"));
-		try {
-			VERSION_MARSHALLER.marshal(version, zipOutputStream);
-		} catch (JAXBException e) {
-			throw new BcfException(e);
-		}
-
-		for (TopicFolder topicFolder : topicFolders.values()) {
-			topicFolder.write(zipOutputStream);
-		}
-		zipOutputStream.finish();
-		zipOutputStream.close();
 	}
 
 	public Collection<TopicFolder> getTopicFolders() {
@@ -240,12 +327,7 @@ public class BcfFile {
 	}
 
 	public void write(File file) throws BcfException, IOException {
-		FileOutputStream outputStream = new FileOutputStream(file);
-		try {
-			write(outputStream);
-		} finally {
-			outputStream.close();
-		}
+		write(file.toPath());
 	}
 
 	public byte[] toBytes() throws BcfException, IOException {
@@ -256,26 +338,31 @@ public class BcfFile {
 
 	public TopicFolder createTopicFolder() {
 		TopicFolder topic = new TopicFolder();
+		topic.setAttachmentStore(attachmentStore);
 		addTopicFolder(topic);
 		return topic;
 	}
 
 	public TopicFolder createTopicFolder(UUID uuid) {
 		TopicFolder topic = new TopicFolder(uuid);
+		topic.setAttachmentStore(attachmentStore);
 		addTopicFolder(topic);
 		return topic;
 	}
 
 	public Project getProject() {
-		if (project == null) {
-			project = new Project();
+		if (projectExtension == null) {
+			projectExtension = new ProjectExtension();
 		}
-		return project;
+		if (projectExtension.getProject() == null) {
+			projectExtension.setProject(new Project());
+		}
+		return projectExtension.getProject();
 	}
 
 	public void validate() throws BcfValidationException {
 		for (TopicFolder topicFolder : getTopicFolders()) {
-			Topic topic = topicFolder.getMarkup().getTopic();
+			Topic topic = topicFolder.readMarkup().getTopic();
 			if (topic.getGuid() == null || topic.getGuid().trim().equals("")) {
 				throw new BcfValidationException("Topic does not have a Guid");
 			}
@@ -288,182 +375,407 @@ public class BcfFile {
 			if (topic.getCreationAuthor() == null || topic.getCreationAuthor().trim().equals("")) {
 				throw new BcfValidationException("Topic " + topic.getGuid() + " does not have a CreationAuthor");
 			}
-			if (topicFolder.getDefaultSnapShot() == null) {
+			if (!topicFolder.hasDefaultSnapShot()) {
 				throw new BcfValidationException("Topic " + topicFolder.getUuid().toString() + " snapshot.png");
 			}
 		}
 	}
 
 	public void write(Path path) throws BcfException, IOException {
-		write(Files.newOutputStream(path));
+		write(path, WriteOptions.DEFAULT);
 	}
 
-	public static BcfFile read(Path path) throws BcfException, IOException {
-		try (InputStream newInputStream = Files.newInputStream(path)) {
-			return read(newInputStream);
+	/**
+	 * Writes this BCF file to the given path. When that is the file this BCF
+	 * file was opened from, it is written to a temporary file first, which
+	 * then replaces the opened file.
+	 */
+	public void write(Path path, WriteOptions writeOptions) throws BcfException, IOException {
+		if (archive != null && Files.exists(path) && Files.isSameFile(path, archive.getPath())) {
+			replace(writeOptions);
+			return;
+		}
+		try (OutputStream outputStream = Files.newOutputStream(path)) {
+			write(outputStream, writeOptions);
 		}
 	}
 
-	public ObjectNode toJson() {
-		ObjectNode objectNode = OBJECT_MAPPER.createObjectNode();
-		if (version != null) {
-			ObjectNode versionNode = OBJECT_MAPPER.createObjectNode();
-			versionNode.put("detailed", version.getDetailedVersion());
-			versionNode.put("id", version.getVersionId());
-			objectNode.set("version", versionNode);
+	private void replace(WriteOptions writeOptions) throws BcfException, IOException {
+		Path path = archive.getPath();
+		Path temp = Files.createTempFile(path.toAbsolutePath().getParent(), path.getFileName().toString(), ".tmp");
+		try {
+			try (OutputStream outputStream = Files.newOutputStream(temp)) {
+				write(outputStream, writeOptions);
+			}
+			archive.close();
+			try {
+				Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			} catch (IOException e) {
+				Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+			}
+		} finally {
+			Files.deleteIfExists(temp);
+			archive.reopen();
+		}
+		for (TopicFolder topicFolder : topicFolders.values()) {
+			topicFolder.markStored(archive);
 		}
+		if (projectExtension != null) {
+			projectCrc = crc(BcfWriter.marshal(BcfSchema.PROJECT, projectExtension));
+		}
+	}
 
-		ObjectNode topicsNode = OBJECT_MAPPER.createObjectNode();
-		objectNode.set("topics", topicsNode);
+	public static BcfFile read(Path path) throws BcfException, IOException {
+		return read(path, ReadOptions.DEFAULT);
+	}
 
-		for (UUID uuid : topicFolders.keySet()) {
-			TopicFolder topicFolder = topicFolders.get(uuid);
-			ObjectNode topicFolderNode = OBJECT_MAPPER.createObjectNode();
-			topicFolderNode.put("uuid", uuid.toString());
-
-			Header header = topicFolder.getMarkup().getHeader();
-			if (header != null) {
-				ObjectNode headerNode = OBJECT_MAPPER.createObjectNode();
-				List<org.opensourcebim.bcf.markup.Header.File> files = header.getFile();
-				if (files != null) {
-					ArrayNode filesNode = OBJECT_MAPPER.createArrayNode();
-					headerNode.set("files", filesNode);
-					for (org.opensourcebim.bcf.markup.Header.File file : files) {
-						ObjectNode fileNode = OBJECT_MAPPER.createObjectNode();
-						XMLGregorianCalendar date = file.getDate();
-						if (date != null) {
-							fileNode.put("date", date.toGregorianCalendar().getTimeInMillis());
-						}
-						if (file.getFilename() != null) {
-							fileNode.put("filename", file.getFilename());
-						}
-						if (file.getIfcProject() != null) {
-							fileNode.put("ifcProject", file.getIfcProject());
-						}
-						if (file.getIfcSpatialStructureElement() != null) {
-							fileNode.put("ifcSpatialStructureElement", file.getIfcSpatialStructureElement());
-						}
-						if (file.getReference() != null) {
-							fileNode.put("reference", file.getReference());
-						}
-						if (!file.isIsExternal()) {
-							fileNode.put("isExternal", false);
-						}
-						filesNode.add(fileNode);
-					}
-				}
-				topicFolderNode.set("header", headerNode);
+	/**
+	 * Reads a BCF file on disk. The entries are located through the central
+	 * directory, so embedded models and other entries that are not needed are
+	 * skipped without being inflated. Embedded models can be opened later on
+	 * through {@link #getIfcFileReferences()}.
+	 */
+	public static BcfFile read(Path path, ReadOptions readOptions) throws BcfException, IOException {
+		BcfFile bcf = new BcfFile();
+		try (BcfArchive archive = new BcfArchive(path)) {
+			bcf.openInternal(archive, readOptions);
+			bcf.loadAll(readOptions.getExecutor());
+		} catch (ZipException e) {
+			// Not readable through the central directory, fall back to scanning the local headers
+			try (InputStream inputStream = Files.newInputStream(path)) {
+				return read(inputStream, readOptions);
 			}
+		} finally {
+			bcf.archive = null;
+		}
+		return bcf;
+	}
 
-			Topic topic = topicFolder.getMarkup().getTopic();
-			ObjectNode topicNode = OBJECT_MAPPER.createObjectNode();
-			topicFolderNode.set("topic", topicNode);
-			topicNode.put("assignedTo", topic.getAssignedTo());
-			topicNode.put("creationAuthor", topic.getCreationAuthor());
-			topicNode.put("description", topic.getDescription());
-			topicNode.put("guid", topic.getGuid());
-			topicNode.put("modifiedAuthor", topic.getModifiedAuthor());
-			topicNode.put("priority", topic.getPriority());
-			ArrayNode referenceLinksNode = OBJECT_MAPPER.createArrayNode();
-			for (String referenceLink : topic.getReferenceLink()) {
-				referenceLinksNode.add(referenceLink);
+	/**
+	 * Loads every topic folder of the archive, on the executor when given.
+	 */
+	private void loadAll(Executor executor) throws BcfException {
+		if (executor == null) {
+			for (TopicFolder topicFolder : topicFolders.values()) {
+				topicFolder.load();
 			}
-			topicNode.set("referenceLinks", referenceLinksNode);
-			topicNode.put("title", topic.getTitle());
-			topicNode.put("topicStatus", topic.getTopicStatus());
-			topicNode.put("topicType", topic.getTopicType());
-			BimSnippet bimSnippet = topic.getBimSnippet();
-			if (bimSnippet != null) {
-				ObjectNode bimSnippetNode = OBJECT_MAPPER.createObjectNode();
-				bimSnippetNode.put("reference", bimSnippet.getReference());
-				bimSnippetNode.put("referenceSchema", bimSnippet.getReferenceSchema());
-				bimSnippetNode.put("snippetType", bimSnippet.getSnippetType());
-				topicNode.set("bimSnippet", bimSnippetNode);
+			return;
+		}
+		List<FutureTask<Void>> tasks = new ArrayList<>();
+		try {
+			for (TopicFolder topicFolder : topicFolders.values()) {
+				FutureTask<Void> task = new FutureTask<>(() -> {
+					topicFolder.load();
+					return null;
+				});
+				executor.execute(task);
+				tasks.add(task);
 			}
-			if (topic.getCreationDate() != null) {
-				topicNode.put("creationDate", topic.getCreationDate().toGregorianCalendar().getTimeInMillis());
+			for (FutureTask<Void> task : tasks) {
+				task.get();
 			}
-			if (topic.getIndex() != null) {
-				topicNode.put("index", topic.getIndex().intValue());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new BcfException(e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof BcfException) {
+				throw (BcfException) e.getCause();
+			} else if (e.getCause() instanceof Exception) {
+				throw new BcfException((Exception) e.getCause());
 			}
-			if (topic.getModifiedDate() != null) {
-				topicNode.put("modifiedDate", topic.getModifiedDate().toGregorianCalendar().getTimeInMillis());
+			throw new BcfException(e);
+		} finally {
+			for (FutureTask<Void> task : tasks) {
+				task.cancel(false);
 			}
-			List<DocumentReference> documentReferences = topic.getDocumentReference();
-			if (documentReferences != null) {
-				ArrayNode documentReferencesNode = OBJECT_MAPPER.createArrayNode();
-				for (DocumentReference documentReferences2 : documentReferences) {
-					ObjectNode documentReferenceNode = OBJECT_MAPPER.createObjectNode();
-					documentReferenceNode.put("description", documentReferences2.getDescription());
-					documentReferenceNode.put("guid", documentReferences2.getGuid());
-					documentReferenceNode.put("referencedDocument", documentReferences2.getReferencedDocument());
-					documentReferencesNode.add(documentReferenceNode);
-				}
-				topicNode.set("documentReferences", documentReferencesNode);
+		}
+	}
+
+	/**
+	 * The models embedded in this BCF file. The models of an opened file are
+	 * copied when it is written, so they can still be opened after the file
+	 * has been written onto itself.
+	 */
+	public List<IfcFileReference> getIfcFileReferences() {
+		return Collections.unmodifiableList(ifcFileReferences);
+	}
+
+	/**
+	 * Opens a BCF file for random access. Only the central directory and the
+	 * project information are read, markups, viewpoints and snapshots are
+	 * inflated the first time they are requested from their TopicFolder. The
+	 * file stays open until {@link #close()} is called. Writing to the opened
+	 * file itself with {@link #write(Path)} replaces it with a new file, after
+	 * which this BcfFile reads from the new file.
+	 */
+	public static BcfFile open(Path path) throws BcfException, IOException {
+		return open(path, ReadOptions.DEFAULT);
+	}
+
+	public static BcfFile open(Path path, ReadOptions readOptions) throws BcfException, IOException {
+		BcfArchive archive = new BcfArchive(path);
+		BcfFile bcf = new BcfFile();
+		try {
+			bcf.openInternal(archive, readOptions);
+		} catch (BcfException | RuntimeException e) {
+			archive.close();
+			throw e;
+		}
+		return bcf;
+	}
+
+	/**
+	 * Saves the changes to a file opened with {@link #open(Path)} in place. New
+	 * and modified entries are appended after the existing entries, followed
+	 * by a new central directory, all other bytes of the file are left where
+	 * they are. Superseded entries keep taking up space until the file is
+	 * written again with {@link #write(Path)} or {@link #compact()}.
+	 * <p>
+	 * Only readers that go through the central directory, like
+	 * {@link #open(Path)} and {@link #read(Path)}, skip the superseded
+	 * entries. {@link BcfReader} and the other stream based readers still see
+	 * them and return a part once for every time it was written, so an updated
+	 * file has to be compacted before it is handed to them.
+	 */
+	public void update() throws BcfException, IOException {
+		update(WriteOptions.DEFAULT);
+	}
+
+	public void update(WriteOptions writeOptions) throws BcfException, IOException {
+		if (archive == null) {
+			throw new BcfException("Only files opened with BcfFile.open can be updated");
+		}
+		ZipDirectory zipDirectory = archive.getZipDirectory();
+		Map<String, ZipDirectory.Entry> existingEntries = new LinkedHashMap<>();
+		for (ZipDirectory.Entry entry : zipDirectory.getEntries()) {
+			existingEntries.put(entry.getName(), entry);
+		}
+		List<RawZipEntry> newEntries = new ArrayList<>();
+		RawZipEntry projectEntry = null;
+		if (projectExtension != null) {
+			// Compared with the project as it was read, so project.bcfp is only rewritten when it was changed
+			projectEntry = BcfWriter.createEntry("project.bcfp", BcfWriter.marshal(BcfSchema.PROJECT, projectExtension), writeOptions);
+			if (projectEntry.getCrc() != projectCrc) {
+				newEntries.add(projectEntry);
 			}
-			List<String> labels = topic.getLabels();
-			if (labels != null) {
-				ArrayNode labelsNode = OBJECT_MAPPER.createArrayNode();
-				for (String label : labels) {
-					labelsNode.add(label);
+		}
+		for (TopicFolder topicFolder : topicFolders.values()) {
+			for (TopicFolder.Part part : topicFolder.getParts()) {
+				if (!part.isStoredIn(archive)) {
+					newEntries.add(BcfWriter.prepare(part, writeOptions));
 				}
-				topicNode.set("labels", labelsNode);
 			}
-			List<RelatedTopic> relatedTopics = topic.getRelatedTopic();
-			if (relatedTopics != null) {
-				ArrayNode relatedTopicsNode = OBJECT_MAPPER.createArrayNode();
-				for (RelatedTopic relatedTopics2 : relatedTopics) {
-					relatedTopicsNode.add(relatedTopics2.getGuid());
+		}
+		if (newEntries.isEmpty()) {
+			return;
+		}
+		for (RawZipEntry newEntry : newEntries) {
+			existingEntries.remove(newEntry.getName());
+		}
+
+		long centralDirectoryOffset = zipDirectory.getCentralDirectoryOffset();
+		try (FileChannel fileChannel = FileChannel.open(archive.getPath(), StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			long originalSize = fileChannel.size();
+			ByteBuffer originalTail = ByteBuffer.allocate((int) (originalSize - centralDirectoryOffset));
+			fileChannel.position(centralDirectoryOffset);
+			IOUtils.readFully(fileChannel, originalTail);
+			try {
+				fileChannel.position(centralDirectoryOffset);
+				ZipWriter zipWriter = new ZipWriter(Channels.newOutputStream(fileChannel), centralDirectoryOffset);
+				for (ZipDirectory.Entry existingEntry : existingEntries.values()) {
+					zipWriter.addExisting(existingEntry);
 				}
-				topicNode.set("relatedTopics", relatedTopicsNode);
-			}
-			List<ViewPoint> viewpoints = topicFolder.getMarkup().getViewpoints();
-			if (viewpoints != null) {
-				ArrayNode viewPointsNode = OBJECT_MAPPER.createArrayNode();
-				for (ViewPoint viewPoint : viewpoints) {
-					ObjectNode viewpointNode = OBJECT_MAPPER.createObjectNode();
-					viewpointNode.put("snapshot", viewPoint.getSnapshot());
-					viewpointNode.put("viewpoint", viewPoint.getViewpoint());
-					viewPointsNode.add(viewpointNode);
+				for (RawZipEntry newEntry : newEntries) {
+					zipWriter.write(newEntry);
 				}
-				topicNode.set("viewpoints", viewPointsNode);
-			}
-			if (topicFolder.getDefaultSnapShot() != null) {
-				topicNode.put("defaultSnapshot", "snapshot.png");
+				zipWriter.finish();
+				fileChannel.truncate(fileChannel.position());
+				fileChannel.force(true);
+			} catch (IOException | RuntimeException e) {
+				// Put the original central directory back, so the file stays readable
+				originalTail.flip();
+				fileChannel.truncate(centralDirectoryOffset);
+				fileChannel.write(originalTail, centralDirectoryOffset);
+				throw e;
 			}
-			List<Comment> comments = topicFolder.getMarkup().getComment();
-			if (comments != null) {
-				ArrayNode commentsNode = OBJECT_MAPPER.createArrayNode();
-				for (Comment comment : comments) {
-					ObjectNode commentNode = OBJECT_MAPPER.createObjectNode();
-					if (comment.getDate() != null) {
-						commentNode.put("date", comment.getDate().toGregorianCalendar().getTimeInMillis());
-					}
-					commentNode.put("author", comment.getAuthor());
-					commentNode.put("comment", comment.getComment());
+		} finally {
+			archive.reopen();
+		}
+		for (TopicFolder topicFolder : topicFolders.values()) {
+			topicFolder.markStored(archive);
+		}
+		if (projectEntry != null) {
+			projectCrc = projectEntry.getCrc();
+		}
+	}
 
-					if (comment.getGuid() != null) {
-						commentNode.put("guid", comment.getGuid());
-					}
-					if (comment.getModifiedAuthor() != null) {
-						commentNode.put("modifiedAuthor", comment.getModifiedAuthor());
-					}
-					if (comment.getModifiedDate() != null) {
-						commentNode.put("modifiedDate", comment.getModifiedDate().toGregorianCalendar().getTimeInMillis());
-					}
-					Viewpoint viewpoint = comment.getViewpoint();
-					if (viewpoint != null) {
-						ObjectNode viewpointNode = OBJECT_MAPPER.createObjectNode();
-						viewpointNode.put("guid", viewpoint.getGuid());
-						commentNode.set("viewpoint", viewpointNode);
-					}
-					commentsNode.add(commentNode);
-				}
-				topicNode.set("comments", commentsNode);
+	/**
+	 * Rewrites a file opened with {@link #open(Path)} without the entries
+	 * superseded by {@link #update()}, after which every part is stored once.
+	 */
+	public void compact() throws BcfException, IOException {
+		compact(WriteOptions.DEFAULT);
+	}
+
+	public void compact(WriteOptions writeOptions) throws BcfException, IOException {
+		if (archive == null) {
+			throw new BcfException("Only files opened with BcfFile.open can be compacted");
+		}
+		replace(writeOptions);
+	}
+
+	private static long crc(byte[] data) {
+		CRC32 crc32 = new CRC32();
+		crc32.update(data);
+		return crc32.getValue();
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (archive != null) {
+			archive.close();
+			archive = null;
+		}
+	}
+
+	public ObjectNode toJson() {
+		try (TokenBuffer tokenBuffer = new TokenBuffer(OBJECT_MAPPER, false)) {
+			writeJson(tokenBuffer);
+			return OBJECT_MAPPER.readTree(tokenBuffer.asParser());
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Reads a BCF file from the layout of {@link #toJson()}. Only the markups
+	 * are part of that layout, the topic folders have no viewpoint files or
+	 * snapshots.
+	 */
+	public static BcfFile fromJson(InputStream inputStream) throws BcfException, IOException {
+		try (JsonParser parser = OBJECT_MAPPER.getFactory().createParser(inputStream)) {
+			return fromJson(parser);
+		}
+	}
+
+	/**
+	 * Reads a BCF file from the next value of the given parser.
+	 */
+	public static BcfFile fromJson(JsonParser parser) throws BcfException, IOException {
+		BcfFile bcfFile = new BcfFile();
+		new BcfJsonReader(parser).read(bcfFile);
+		return bcfFile;
+	}
+
+	/**
+	 * Writes the layout of {@link #toJson()} to the given stream topic by
+	 * topic, without building a tree first. The stream is left open.
+	 */
+	public void writeJson(OutputStream outputStream) throws IOException {
+		writeJson(outputStream, JsonExportOptions.DEFAULT);
+	}
+
+	/**
+	 * Writes the fields and the page of topics selected by the options, see
+	 * {@link BcfJsonWriter}.
+	 */
+	public void writeJson(OutputStream outputStream, JsonExportOptions options) throws IOException {
+		try (BcfJsonWriter jsonWriter = new BcfJsonWriter(outputStream, options)) {
+			writeJson(jsonWriter);
+		}
+	}
+
+	/**
+	 * Writes the layout of {@link #toJson()} as the next value of the given
+	 * generator.
+	 */
+	public void writeJson(JsonGenerator generator) throws IOException {
+		writeJson(generator, JsonExportOptions.DEFAULT);
+	}
+
+	public void writeJson(JsonGenerator generator, JsonExportOptions options) throws IOException {
+		BcfJsonWriter jsonWriter = new BcfJsonWriter(generator, options);
+		writeJson(jsonWriter);
+		jsonWriter.finish();
+	}
+
+	private void writeJson(BcfJsonWriter jsonWriter) throws IOException {
+		jsonWriter.writeVersion(version);
+		for (TopicFolder topicFolder : topicFolders.values()) {
+			if (jsonWriter.isPageFull()) {
+				break;
 			}
-			topicsNode.set(uuid.toString(), topicFolderNode);
+			jsonWriter.writeTopicFolder(topicFolder);
 		}
-		return objectNode;
+	}
+
+	/**
+	 * Lists the topics of a BCF file on disk, only its markups are inflated
+	 * and no other file is written.
+	 */
+	public static List<TopicSummary> listTopics(Path path) throws BcfException, IOException {
+		return TopicIndex.build(path).getTopics();
+	}
+
+	/**
+	 * Lists the topics of a BCF file on disk from its {@link TopicIndex}
+	 * sidecar file in the given cache directory, which is created or refreshed
+	 * when needed.
+	 */
+	public static List<TopicSummary> listTopics(Path path, Path cacheDirectory) throws BcfException, IOException {
+		return TopicIndex.load(path, cacheDirectory).getTopics();
+	}
+
+	/**
+	 * Starts a query over the topic folders of this file. The indexes used to
+	 * answer queries are rebuilt when topic folders are added or their markups
+	 * are replaced, after changing topics in place {@link #invalidateIndexes()}
+	 * must be called.
+	 */
+	public TopicQuery query() {
+		return new TopicQuery(queryEngine);
+	}
+
+	/**
+	 * The components referenced by the viewpoints of this file. The index is
+	 * kept until topic folders are added or their viewpoints are replaced,
+	 * after changing viewpoints in place {@link #invalidateIndexes()} must be
+	 * called.
+	 */
+	public synchronized ComponentIndex getComponentIndex() {
+		long stamp = getModificationStamp();
+		if (componentIndex == null || componentIndexStamp != stamp) {
+			componentIndex = ComponentIndex.build(topicFolders.values());
+			componentIndexStamp = stamp;
+		}
+		return componentIndex;
+	}
+
+	/**
+	 * Drops the query and component indexes, to be called after topics or
+	 * viewpoints have been changed in place.
+	 */
+	public void invalidateIndexes() {
+		queryEngine.invalidate();
+		synchronized (this) {
+			componentIndex = null;
+		}
+	}
+
+	/**
+	 * Grows whenever a topic folder is added or the markup or a viewpoint of
+	 * one of them is replaced.
+	 */
+	long getModificationStamp() {
+		long stamp = modificationCount;
+		for (TopicFolder topicFolder : topicFolders.values()) {
+			stamp += topicFolder.getModificationCount();
+		}
+		return stamp;
+	}
+
+	public TopicIndex getTopicIndex() {
+		return TopicIndex.build(this);
 	}
 
 	public TopicFolder getTopicFolder(String topicUuid) {
@@ -483,9 +795,13 @@ public class BcfFile {
 	public void mergeInto(BcfFile otherBcf) {
 		for (TopicFolder topicFolder : otherBcf.getTopicFolders()) {
 			TopicFolder newTopicFolder = createTopicFolder(topicFolder.getUuid());
-			newTopicFolder.setDefaultSnapShot(topicFolder.getDefaultSnapShot());
 			newTopicFolder.setMarkup(topicFolder.getMarkup());
-			newTopicFolder.setVisualizationInfo(topicFolder.getVisualizationInfo());
+			for (String fileName : topicFolder.getViewpointFileNames()) {
+				newTopicFolder.setVisualizationInfo(fileName, topicFolder.getVisualizationInfo(fileName));
+			}
+			for (String fileName : topicFolder.getSnapshotFileNames()) {
+				newTopicFolder.addSnapShot(fileName, topicFolder.getSnapshot(fileName));
+			}
 		}
 	}
 }
\ No newline at end of file
@@ -0,0 +1,363 @@
+package org.opensourcebim.bcf;
+
+/******************************************************************************
+ * Copyright (C) 2009-2018  BIMserver.org
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see {@literal<http://www.gnu.org/licenses/>}.
+ *****************************************************************************/
+
+import java.io.IOException;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import org.opensourcebim.bcf.markup.BimSnippet;
+import org.opensourcebim.bcf.markup.Comment;
+import org.opensourcebim.bcf.markup.Comment.Viewpoint;
+import org.opensourcebim.bcf.markup.Header;
+import org.opensourcebim.bcf.markup.Markup;
+import org.opensourcebim.bcf.markup.Topic;
+import org.opensourcebim.bcf.markup.Topic.DocumentReference;
+import org.opensourcebim.bcf.markup.Topic.RelatedTopic;
+import org.opensourcebim.bcf.markup.ViewPoint;
+import org.opensourcebim.bcf.utils.IsoDateTime;
+import org.opensourcebim.bcf.version.Version;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+/**
+ * Reads the JSON layout written by {@link BcfJsonWriter} back into markups
+ * with a streaming parser. Unknown fields are skipped. Viewpoint files and
+ * snapshots are not part of the layout, so topic folders read from JSON only
+ * have a markup.
+ */
+class BcfJsonReader {
+	private final JsonParser parser;
+
+	BcfJsonReader(JsonParser parser) {
+		this.parser = parser;
+	}
+
+	void read(BcfFile bcfFile) throws IOException, BcfException {
+		if (parser.currentToken() == null) {
+			parser.nextToken();
+		}
+		expect(JsonToken.START_OBJECT);
+		for (String field = parser.nextFieldName(); field != null; field = parser.nextFieldName()) {
+			parser.nextToken();
+			if (field.equals("version")) {
+				bcfFile.setVersion(readVersion());
+			} else if (field.equals("topics")) {
+				expect(JsonToken.START_OBJECT);
+				for (String uuid = parser.nextFieldName(); uuid != null; uuid = parser.nextFieldName()) {
+					parser.nextToken();
+					TopicFolder topicFolder = bcfFile.createTopicFolder(parseUuid(uuid));
+					topicFolder.setMarkup(readTopicFolder());
+				}
+			} else {
+				parser.skipChildren();
+			}
+		}
+	}
+
+	private Version readVersion() throws IOException, BcfException {
+		expect(JsonToken.START_OBJECT);
+		Version version = new Version();
+		for (String field = parser.nextFieldName(); field != null; field = parser.nextFieldName()) {
+			parser.nextToken();
+			if (field.equals("detailed")) {
+				version.setDetailedVersion(text());
+			} else if (field.equals("id")) {
+				version.setVersionId(text());
+			} else {
+				parser.skipChildren();
+			}
+		}
+		return version;
+	}
+
+	private Markup readTopicFolder() throws IOException, BcfException {
+		expect(JsonToken.START_OBJECT);
+		Markup markup = new Markup();
+		for (String field = parser.nextFieldName(); field != null; field = parser.nextFieldName()) {
+			parser.nextToken();
+			if (field.equals("header")) {
+				markup.setHeader(readHeader());
+			} else if (field.equals("topic")) {
+				markup.setTopic(readTopic(markup));
+			} else {
+				parser.skipChildren();
+			}
+		}
+		return markup;
+	}
+
+	private Header readHeader() throws IOException, BcfException {
+		expect(JsonToken.START_OBJECT);
+		Header header = new Header();
+		for (String field = parser.nextFieldName(); field != null; field = parser.nextFieldName()) {
+			parser.nextToken();
+			if (field.equals("files")) {
+				expect(JsonToken.START_ARRAY);
+				while (parser.nextToken() != JsonToken.END_ARRAY) {
+					header.getFile().add(readFile());
+				}
+			} else {
+				parser.skipChildren();
+			}
+		}
+		return header;
+	}
+
+	private Header.File readFile() throws IOException, BcfException {
+		expect(JsonToken.START_OBJECT);
+		Header.File file = new Header.File();
+		for (String field = parser.nextFieldName(); field != null; field = parser.nextFieldName()) {
+			parser.nextToken();
+			switch (field) {
+			case "date":
+				file.setDate(date());
+				break;
+			case "filename":
+				file.setFilename(text());
+				break;
+			case "ifcProject":
+				file.setIfcProject(text());
+				break;
+			case "ifcSpatialStructureElement":
+				file.setIfcSpatialStructureElement(text());
+				break;
+			case "reference":
+				file.setReference(text());
+				break;
+			case "isExternal":
+				file.setIsExternal(parser.getBooleanValue());
+				break;
+			default:
+				parser.skipChildren();
+			}
+		}
+		return file;
+	}
+
+	private Topic readTopic(Markup markup) throws IOException, BcfException {
+		expect(JsonToken.START_OBJECT);
+		Topic topic = new Topic();
+		for (String field = parser.nextFieldName(); field != null; field = parser.nextFieldName()) {
+			parser.nextToken();
+			switch (field) {
+			case "assignedTo":
+				topic.setAssignedTo(text());
+				break;
+			case "creationAuthor":
+				topic.setCreationAuthor(text());
+				break;
+			case "description":
+				topic.setDescription(text());
+				break;
+			case "guid":
+				topic.setGuid(text());
+				break;
+			case "modifiedAuthor":
+				topic.setModifiedAuthor(text());
+				break;
+			case "priority":
+				topic.setPriority(text());
+				break;
+			case "referenceLinks":
+				readStrings(topic.getReferenceLink());
+				break;
+			case "title":
+				topic.setTitle(text());
+				break;
+			case "topicStatus":
+				topic.setTopicStatus(text());
+				break;
+			case "topicType":
+				topic.setTopicType(text());
+				break;
+			case "bimSnippet":
+				topic.setBimSnippet(readBimSnippet());
+				break;
+			case "creationDate":
+				topic.setCreationDate(date());
+				break;
+			case "index":
+				topic.setIndex(parser.currentToken() == JsonToken.VALUE_NULL ? null : parser.getIntValue());
+				break;
+			case "modifiedDate":
+				topic.setModifiedDate(date());
+				break;
+			case "documentReferences":
+				expect(JsonToken.START_ARRAY);
+				while (parser.nextToken() != JsonToken.END_ARRAY) {
+					topic.getDocumentReference().add(readDocumentReference());
+				}
+				break;
+			case "labels":
+				readStrings(topic.getLabels());
+				break;
+			case "relatedTopics":
+				expect(JsonToken.START_ARRAY);
+				while (parser.nextToken() != JsonToken.END_ARRAY) {
+					RelatedTopic relatedTopic = new RelatedTopic();
+					relatedTopic.setGuid(text());
+					topic.getRelatedTopic().add(relatedTopic);
+				}
+				break;
+			case "viewpoints":
+				expect(JsonToken.START_ARRAY);
+				while (parser.nextToken() != JsonToken.END_ARRAY) {
+					markup.getViewpoints().add(readViewPoint());
+				}
+				break;
+			case "comments":
+				expect(JsonToken.START_ARRAY);
+				while (parser.nextToken() != JsonToken.END_ARRAY) {
+					markup.getComment().add(readComment());
+				}
+				break;
+			default:
+				parser.skipChildren();
+			}
+		}
+		return topic;
+	}
+
+	private BimSnippet readBimSnippet() throws IOException, BcfException {
+		expect(JsonToken.START_OBJECT);
+		BimSnippet bimSnippet = new BimSnippet();
+		for (String field = parser.nextFieldName(); field != null; field = parser.nextFieldName()) {
+			parser.nextToken();
+			if (field.equals("reference")) {
+				bimSnippet.setReference(text());
+			} else if (field.equals("referenceSchema")) {
+				bimSnippet.setReferenceSchema(text());
+			} else if (field.equals("snippetType")) {
+				bimSnippet.setSnippetType(text());
+			} else {
+				parser.skipChildren();
+			}
+		}
+		return bimSnippet;
+	}
+
+	private DocumentReference readDocumentReference() throws IOException, BcfException {
+		expect(JsonToken.START_OBJECT);
+		DocumentReference documentReference = new DocumentReference();
+		for (String field = parser.nextFieldName(); field != null; field = parser.nextFieldName()) {
+			parser.nextToken();
+			if (field.equals("description")) {
+				documentReference.setDescription(text());
+			} else if (field.equals("guid")) {
+				documentReference.setGuid(text());
+			} else if (field.equals("referencedDocument")) {
+				documentReference.setReferencedDocument(text());
+			} else {
+				parser.skipChildren();
+			}
+		}
+		return documentReference;
+	}
+
+	private ViewPoint readViewPoint() throws IOException, BcfException {
+		expect(JsonToken.START_OBJECT);
+		ViewPoint viewPoint = new ViewPoint();
+		for (String field = parser.nextFieldName(); field != null; field = parser.nextFieldName()) {
+			parser.nextToken();
+			if (field.equals("snapshot")) {
+				viewPoint.setSnapshot(text());
+			} else if (field.equals("viewpoint")) {
+				viewPoint.setViewpoint(text());
+			} else {
+				parser.skipChildren();
+			}
+		}
+		return viewPoint;
+	}
+
+	private Comment readComment() throws IOException, BcfException {
+		expect(JsonToken.START_OBJECT);
+		Comment comment = new Comment();
+		for (String field = parser.nextFieldName(); field != null; field = parser.nextFieldName()) {
+			parser.nextToken();
+			switch (field) {
+			case "date":
+				comment.setDate(date());
+				break;
+			case "author":
+				comment.setAuthor(text());
+				break;
+			case "comment":
+				comment.setComment(text());
+				break;
+			case "guid":
+				comment.setGuid(text());
+				break;
+			case "modifiedAuthor":
+				comment.setModifiedAuthor(text());
+				break;
+			case "modifiedDate":
+				comment.setModifiedDate(date());
+				break;
+			case "viewpoint":
+				expect(JsonToken.START_OBJECT);
+				Viewpoint viewpoint = new Viewpoint();
+				for (String viewpointField = parser.nextFieldName(); viewpointField != null; viewpointField = parser.nextFieldName()) {
+					parser.nextToken();
+					if (viewpointField.equals("guid")) {
+						viewpoint.setGuid(text());
+					} else {
+						parser.skipChildren();
+					}
+				}
+				comment.setViewpoint(viewpoint);
+				break;
+			default:
+				parser.skipChildren();
+			}
+		}
+		return comment;
+	}
+
+	private void readStrings(List<String> strings) throws IOException, BcfException {
+		expect(JsonToken.START_ARRAY);
+		while (parser.nextToken() != JsonToken.END_ARRAY) {
+			strings.add(text());
+		}
+	}
+
+	private String text() throws IOException {
+		return parser.currentToken() == JsonToken.VALUE_NULL ? null : parser.getText();
+	}
+
+	private OffsetDateTime date() throws IOException {
+		return parser.currentToken() == JsonToken.VALUE_NULL ? null : IsoDateTime.ofEpochMilli(parser.getLongValue());
+	}
+
+	private UUID parseUuid(String uuid) throws BcfException {
+		try {
+			return UUID.fromString(uuid);
+		} catch (IllegalArgumentException e) {
+			throw new BcfException("Invalid topic uuid " + uuid + " at " + parser.currentLocation());
+		}
+	}
+
+	private void expect(JsonToken token) throws BcfException {
+		if (parser.currentToken() != token) {
+			throw new BcfException("Expected " + token + " but found " + parser.currentToken() + " at " + parser.currentLocation());
+		}
+	}
+}
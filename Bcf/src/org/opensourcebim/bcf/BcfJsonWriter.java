@@ -0,0 +1,373 @@
+package org.opensourcebim.bcf;
+
+/******************************************************************************
+ * Copyright (C) 2009-2018  BIMserver.org
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see {@literal<http://www.gnu.org/licenses/>}.
+ *****************************************************************************/
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import org.opensourcebim.bcf.markup.BimSnippet;
+import org.opensourcebim.bcf.markup.Comment;
+import org.opensourcebim.bcf.markup.Comment.Viewpoint;
+import org.opensourcebim.bcf.markup.Header;
+import org.opensourcebim.bcf.markup.Markup;
+import org.opensourcebim.bcf.markup.Topic;
+import org.opensourcebim.bcf.markup.Topic.DocumentReference;
+import org.opensourcebim.bcf.markup.Topic.RelatedTopic;
+import org.opensourcebim.bcf.markup.ViewPoint;
+import org.opensourcebim.bcf.utils.IsoDateTime;
+import org.opensourcebim.bcf.version.Version;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+/**
+ * Writes the JSON layout of {@link BcfFile#toJson()} topic by topic to a
+ * generator, without building a tree. The version can be written before or
+ * after the topics, so files can be converted while they are streamed.
+ * {@link JsonExportOptions} select the fields and the page of topics that are
+ * written, when a page is cut short the uuid of its last topic is written as
+ * "nextCursor".
+ */
+public class BcfJsonWriter implements Closeable {
+	private static final JsonFactory JSON_FACTORY = new JsonFactory().disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+	private final JsonGenerator generator;
+	private final boolean ownsGenerator;
+	private final JsonExportOptions options;
+	private boolean beforeCursor;
+	private int skipped;
+	private int written;
+	private UUID lastUuid;
+	private boolean pageFull;
+	private boolean versionWritten;
+	private boolean inTopics;
+	private boolean topicsWritten;
+	private boolean finished;
+
+	/**
+	 * Writes the BCF file as the next value of the given generator, which is
+	 * left open.
+	 */
+	public BcfJsonWriter(JsonGenerator generator) throws IOException {
+		this(generator, false, JsonExportOptions.DEFAULT);
+	}
+
+	public BcfJsonWriter(JsonGenerator generator, JsonExportOptions options) throws IOException {
+		this(generator, false, options);
+	}
+
+	/**
+	 * Writes the BCF file as UTF-8 to the given stream, which is left open.
+	 */
+	public BcfJsonWriter(OutputStream outputStream) throws IOException {
+		this(outputStream, JsonExportOptions.DEFAULT);
+	}
+
+	public BcfJsonWriter(OutputStream outputStream, JsonExportOptions options) throws IOException {
+		this(JSON_FACTORY.createGenerator(outputStream, JsonEncoding.UTF8), true, options);
+	}
+
+	private BcfJsonWriter(JsonGenerator generator, boolean ownsGenerator, JsonExportOptions options) throws IOException {
+		this.generator = generator;
+		this.ownsGenerator = ownsGenerator;
+		this.options = options;
+		this.beforeCursor = options.getAfter() != null;
+		generator.writeStartObject();
+	}
+
+	/**
+	 * Whether the page of topics is complete, so topics that follow need not
+	 * be read anymore.
+	 */
+	public boolean isPageFull() {
+		return pageFull;
+	}
+
+	public void writeVersion(Version version) throws IOException {
+		checkNotFinished();
+		if (version == null || versionWritten) {
+			return;
+		}
+		endTopics();
+		generator.writeObjectFieldStart("version");
+		generator.writeStringField("detailed", version.getDetailedVersion());
+		generator.writeStringField("id", version.getVersionId());
+		generator.writeEndObject();
+		versionWritten = true;
+	}
+
+	/**
+	 * Writes the topic folder when it falls within the page, the markups of
+	 * topic folders outside of it are not resolved.
+	 */
+	public void writeTopicFolder(TopicFolder topicFolder) throws IOException {
+		if (isOnPage(topicFolder.getUuid())) {
+			writeTopicOnPage(topicFolder.getUuid(), topicFolder.readMarkup(), topicFolder.hasDefaultSnapShot());
+		}
+	}
+
+	/**
+	 * Writes the topic when it falls within the page, topics outside of it
+	 * are skipped.
+	 */
+	public void writeTopic(UUID uuid, Markup markup, boolean hasDefaultSnapshot) throws IOException {
+		if (isOnPage(uuid)) {
+			writeTopicOnPage(uuid, markup, hasDefaultSnapshot);
+		}
+	}
+
+	/**
+	 * Advances the page past the topic with the given uuid, returns whether
+	 * it is on the page and has to be written.
+	 */
+	private boolean isOnPage(UUID uuid) {
+		checkNotFinished();
+		if (pageFull) {
+			return false;
+		}
+		if (beforeCursor) {
+			beforeCursor = !uuid.equals(options.getAfter());
+			return false;
+		}
+		if (skipped < options.getOffset()) {
+			skipped++;
+			return false;
+		}
+		if (options.getLimit() >= 0 && written >= options.getLimit()) {
+			pageFull = true;
+			return false;
+		}
+		return true;
+	}
+
+	private void writeTopicOnPage(UUID uuid, Markup markup, boolean hasDefaultSnapshot) throws IOException {
+		if (!inTopics) {
+			if (topicsWritten) {
+				throw new IllegalStateException("Topics have to be written before the version, or all after it");
+			}
+			generator.writeObjectFieldStart("topics");
+			inTopics = true;
+			topicsWritten = true;
+		}
+		generator.writeObjectFieldStart(uuid.toString());
+		generator.writeStringField("uuid", uuid.toString());
+
+		Header header = markup.getHeader();
+		if (header != null && options.includes("header")) {
+			generator.writeObjectFieldStart("header");
+			List<Header.File> files = header.getFile();
+			if (files != null) {
+				generator.writeArrayFieldStart("files");
+				for (Header.File file : files) {
+					generator.writeStartObject();
+					if (file.getDate() != null) {
+						generator.writeNumberField("date", IsoDateTime.toEpochMilli(file.getDate()));
+					}
+					if (file.getFilename() != null) {
+						generator.writeStringField("filename", file.getFilename());
+					}
+					if (file.getIfcProject() != null) {
+						generator.writeStringField("ifcProject", file.getIfcProject());
+					}
+					if (file.getIfcSpatialStructureElement() != null) {
+						generator.writeStringField("ifcSpatialStructureElement", file.getIfcSpatialStructureElement());
+					}
+					if (file.getReference() != null) {
+						generator.writeStringField("reference", file.getReference());
+					}
+					if (!file.isIsExternal()) {
+						generator.writeBooleanField("isExternal", false);
+					}
+					generator.writeEndObject();
+				}
+				generator.writeEndArray();
+			}
+			generator.writeEndObject();
+		}
+
+		Topic topic = markup.getTopic();
+		generator.writeObjectFieldStart("topic");
+		writeStringField("assignedTo", topic.getAssignedTo());
+		writeStringField("creationAuthor", topic.getCreationAuthor());
+		writeStringField("description", topic.getDescription());
+		writeStringField("guid", topic.getGuid());
+		writeStringField("modifiedAuthor", topic.getModifiedAuthor());
+		writeStringField("priority", topic.getPriority());
+		if (options.includes("referenceLinks")) {
+			generator.writeArrayFieldStart("referenceLinks");
+			for (String referenceLink : topic.getReferenceLink()) {
+				generator.writeString(referenceLink);
+			}
+			generator.writeEndArray();
+		}
+		writeStringField("title", topic.getTitle());
+		writeStringField("topicStatus", topic.getTopicStatus());
+		writeStringField("topicType", topic.getTopicType());
+		BimSnippet bimSnippet = topic.getBimSnippet();
+		if (bimSnippet != null && options.includes("bimSnippet")) {
+			generator.writeObjectFieldStart("bimSnippet");
+			generator.writeStringField("reference", bimSnippet.getReference());
+			generator.writeStringField("referenceSchema", bimSnippet.getReferenceSchema());
+			generator.writeStringField("snippetType", bimSnippet.getSnippetType());
+			generator.writeEndObject();
+		}
+		writeDateField("creationDate", topic.getCreationDate());
+		if (topic.getIndex() != null && options.includes("index")) {
+			generator.writeNumberField("index", topic.getIndex().intValue());
+		}
+		writeDateField("modifiedDate", topic.getModifiedDate());
+		List<DocumentReference> documentReferences = topic.getDocumentReference();
+		if (documentReferences != null && options.includes("documentReferences")) {
+			generator.writeArrayFieldStart("documentReferences");
+			for (DocumentReference documentReference : documentReferences) {
+				generator.writeStartObject();
+				generator.writeStringField("description", documentReference.getDescription());
+				generator.writeStringField("guid", documentReference.getGuid());
+				generator.writeStringField("referencedDocument", documentReference.getReferencedDocument());
+				generator.writeEndObject();
+			}
+			generator.writeEndArray();
+		}
+		List<String> labels = topic.getLabels();
+		if (labels != null && options.includes("labels")) {
+			generator.writeArrayFieldStart("labels");
+			for (String label : labels) {
+				generator.writeString(label);
+			}
+			generator.writeEndArray();
+		}
+		List<RelatedTopic> relatedTopics = topic.getRelatedTopic();
+		if (relatedTopics != null && options.includes("relatedTopics")) {
+			generator.writeArrayFieldStart("relatedTopics");
+			for (RelatedTopic relatedTopic : relatedTopics) {
+				generator.writeString(relatedTopic.getGuid());
+			}
+			generator.writeEndArray();
+		}
+		List<ViewPoint> viewpoints = markup.getViewpoints();
+		if (viewpoints != null && options.includes("viewpoints")) {
+			generator.writeArrayFieldStart("viewpoints");
+			for (ViewPoint viewPoint : viewpoints) {
+				generator.writeStartObject();
+				generator.writeStringField("snapshot", viewPoint.getSnapshot());
+				generator.writeStringField("viewpoint", viewPoint.getViewpoint());
+				generator.writeEndObject();
+			}
+			generator.writeEndArray();
+		}
+		if (hasDefaultSnapshot) {
+			writeStringField("defaultSnapshot", TopicFolder.DEFAULT_SNAPSHOT);
+		}
+		List<Comment> comments = markup.getComment();
+		if (comments != null && options.includes("comments")) {
+			generator.writeArrayFieldStart("comments");
+			for (Comment comment : comments) {
+				generator.writeStartObject();
+				if (comment.getDate() != null) {
+					generator.writeNumberField("date", IsoDateTime.toEpochMilli(comment.getDate()));
+				}
+				generator.writeStringField("author", comment.getAuthor());
+				generator.writeStringField("comment", comment.getComment());
+				if (comment.getGuid() != null) {
+					generator.writeStringField("guid", comment.getGuid());
+				}
+				if (comment.getModifiedAuthor() != null) {
+					generator.writeStringField("modifiedAuthor", comment.getModifiedAuthor());
+				}
+				if (comment.getModifiedDate() != null) {
+					generator.writeNumberField("modifiedDate", IsoDateTime.toEpochMilli(comment.getModifiedDate()));
+				}
+				Viewpoint viewpoint = comment.getViewpoint();
+				if (viewpoint != null) {
+					generator.writeObjectFieldStart("viewpoint");
+					generator.writeStringField("guid", viewpoint.getGuid());
+					generator.writeEndObject();
+				}
+				generator.writeEndObject();
+			}
+			generator.writeEndArray();
+		}
+		generator.writeEndObject();
+		generator.writeEndObject();
+		written++;
+		lastUuid = uuid;
+	}
+
+	private void writeStringField(String name, String value) throws IOException {
+		if (options.includes(name)) {
+			generator.writeStringField(name, value);
+		}
+	}
+
+	private void writeDateField(String name, OffsetDateTime value) throws IOException {
+		if (value != null && options.includes(name)) {
+			generator.writeNumberField(name, IsoDateTime.toEpochMilli(value));
+		}
+	}
+
+	private void endTopics() throws IOException {
+		if (inTopics) {
+			generator.writeEndObject();
+			inTopics = false;
+		}
+	}
+
+	private void checkNotFinished() {
+		if (finished) {
+			throw new IllegalStateException("The BCF file has already been written");
+		}
+	}
+
+	/**
+	 * Ends the JSON object of the BCF file, an empty topics object is written
+	 * when no topic has been.
+	 */
+	public void finish() throws IOException {
+		if (finished) {
+			return;
+		}
+		if (!topicsWritten) {
+			generator.writeObjectFieldStart("topics");
+			inTopics = true;
+			topicsWritten = true;
+		}
+		endTopics();
+		if (pageFull && lastUuid != null) {
+			generator.writeStringField("nextCursor", lastUuid.toString());
+		}
+		generator.writeEndObject();
+		finished = true;
+		generator.flush();
+	}
+
+	@Override
+	public void close() throws IOException {
+		try {
+			finish();
+		} finally {
+			if (ownsGenerator) {
+				generator.close();
+			}
+		}
+	}
+}
@@ -0,0 +1,249 @@
+package org.opensourcebim.bcf;
+
+/******************************************************************************
+ * Copyright (C) 2009-2018  BIMserver.org
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see {@literal<http://www.gnu.org/licenses/>}.
+ *****************************************************************************/
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.UUID;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import javax.xml.bind.JAXBException;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.opensourcebim.bcf.project.Project;
+import org.opensourcebim.bcf.project.ProjectExtension;
+import org.opensourcebim.bcf.utils.FakeClosingInputStream;
+import org.opensourcebim.bcf.version.Version;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+/**
+ * Streams the parts of a BCF file one by one without building a BcfFile, so
+ * memory use does not depend on the number of topics. Markups and viewpoints
+ * are unmarshalled from a StAX reader positioned on the zip entry, snapshots
+ * are handed out as a stream over the entry itself. The entries are read in
+ * the order they are stored, a file changed with {@link BcfFile#update()}
+ * has to be compacted first, see {@link BcfFile#compact()}.
+ * <p>
+ * A part that cannot be parsed makes {@link #hasNext()} and {@link #next()}
+ * throw an {@link UncheckedBcfException}, I/O errors are thrown as
+ * {@link UncheckedIOException}.
+ */
+public class BcfReader implements Iterator<TopicEvent>, Closeable {
+	private final ZipInputStream zipInputStream;
+	private final ReadOptions readOptions;
+	private TopicEvent nextEvent;
+	private boolean finished;
+	private Project project;
+	private Version version;
+
+	private BcfReader(InputStream inputStream, ReadOptions readOptions) {
+		this.zipInputStream = new ZipInputStream(inputStream);
+		this.readOptions = readOptions;
+	}
+
+	public static BcfReader stream(InputStream inputStream) {
+		return new BcfReader(inputStream, ReadOptions.DEFAULT);
+	}
+
+	public static BcfReader stream(InputStream inputStream, ReadOptions readOptions) {
+		return new BcfReader(inputStream, readOptions);
+	}
+
+	@Override
+	public boolean hasNext() {
+		if (nextEvent == null && !finished) {
+			try {
+				nextEvent = readNext();
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			} catch (BcfException e) {
+				throw new UncheckedBcfException(e);
+			}
+		}
+		return nextEvent != null;
+	}
+
+	@Override
+	public TopicEvent next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		TopicEvent event = nextEvent;
+		nextEvent = null;
+		return event;
+	}
+
+	public Stream<TopicEvent> asStream() {
+		return StreamSupport.stream(Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED | Spliterator.NONNULL), false).onClose(() -> {
+			try {
+				close();
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		});
+	}
+
+	/**
+	 * Converts the remaining parts of the file to the JSON layout of
+	 * {@link BcfFile#toJson()}, holding one markup at a time. Snapshots are
+	 * not read, reading with viewpoints disabled also skips parsing them. This
+	 * requires the entries of each topic folder to be stored together, when a
+	 * topic folder reappears after other ones an IllegalStateException is
+	 * thrown, such files can be converted with {@link BcfFile#writeJson}.
+	 */
+	public void writeJson(OutputStream outputStream) throws IOException {
+		writeJson(outputStream, JsonExportOptions.DEFAULT);
+	}
+
+	/**
+	 * Converts the fields and the page of topics selected by the options, the
+	 * reader stops once the page is complete. The version is then only written
+	 * when it came before the topics that were not read.
+	 */
+	public void writeJson(OutputStream outputStream, JsonExportOptions options) throws IOException {
+		try (BcfJsonWriter jsonWriter = new BcfJsonWriter(outputStream, options)) {
+			writeJson(jsonWriter);
+		}
+	}
+
+	public void writeJson(JsonGenerator generator) throws IOException {
+		writeJson(generator, JsonExportOptions.DEFAULT);
+	}
+
+	public void writeJson(JsonGenerator generator, JsonExportOptions options) throws IOException {
+		BcfJsonWriter jsonWriter = new BcfJsonWriter(generator, options);
+		writeJson(jsonWriter);
+		jsonWriter.finish();
+	}
+
+	private void writeJson(BcfJsonWriter jsonWriter) throws IOException {
+		Set<UUID> finishedTopicUuids = new HashSet<>();
+		UUID topicUuid = null;
+		TopicEvent markupEvent = null;
+		boolean hasDefaultSnapshot = false;
+		while (!jsonWriter.isPageFull() && hasNext()) {
+			TopicEvent event = next();
+			if (!event.getTopicUuid().equals(topicUuid)) {
+				if (topicUuid != null) {
+					if (markupEvent != null) {
+						jsonWriter.writeTopic(topicUuid, markupEvent.getMarkup(), hasDefaultSnapshot);
+					}
+					finishedTopicUuids.add(topicUuid);
+				}
+				topicUuid = event.getTopicUuid();
+				if (finishedTopicUuids.contains(topicUuid)) {
+					throw new IllegalStateException("The entries of topic folder " + topicUuid + " are not stored together, the file cannot be converted while it is streamed");
+				}
+				markupEvent = null;
+				hasDefaultSnapshot = false;
+			}
+			if (event.getType() == TopicEvent.Type.MARKUP) {
+				markupEvent = event;
+			} else if (event.isDefaultSnapshot()) {
+				hasDefaultSnapshot = true;
+			}
+		}
+		if (markupEvent != null) {
+			jsonWriter.writeTopic(topicUuid, markupEvent.getMarkup(), hasDefaultSnapshot);
+		}
+		jsonWriter.writeVersion(version);
+	}
+
+	private TopicEvent readNext() throws IOException, BcfException {
+		for (ZipEntry zipEntry = zipInputStream.getNextEntry(); zipEntry != null; zipEntry = zipInputStream.getNextEntry()) {
+			String name = zipEntry.getName();
+			if (!readOptions.isIncluded(name)) {
+				continue;
+			}
+			if (name.contains("/")) {
+				UUID uuid = UUID.fromString(name.substring(0, name.indexOf("/")));
+				if (name.endsWith(".bcf")) {
+					return new TopicEvent(TopicEvent.Type.MARKUP, uuid, name, unmarshal(BcfSchema.MARKUP, readOptions), null);
+				} else if (name.endsWith(".bcfv")) {
+					return new TopicEvent(TopicEvent.Type.VIEWPOINT, uuid, name, unmarshal(BcfSchema.VISUALIZATION_INFO, readOptions), null);
+				} else if (TopicFolder.isImage(name)) {
+					return new TopicEvent(TopicEvent.Type.SNAPSHOT, uuid, name, null, new FakeClosingInputStream(zipInputStream));
+				}
+			} else {
+				if (name.equals("project.bcfp")) {
+					project = ((ProjectExtension) unmarshal(BcfSchema.PROJECT, ReadOptions.DEFAULT)).getProject();
+				} else if (name.equals("bcf.version")) {
+					try {
+						version = (Version) unmarshal(BcfSchema.VERSION, ReadOptions.DEFAULT);
+					} catch (BcfException e) {
+						e.printStackTrace();
+					}
+				} else if (name.equals("extensions.xsd") || name.endsWith("ifc")) {
+					// ignoring
+				} else {
+					throw new BcfException("Unexpected zipfile content " + name);
+				}
+			}
+		}
+		finished = true;
+		return null;
+	}
+
+	private Object unmarshal(BcfSchema schema, ReadOptions readOptions) throws BcfException {
+		try {
+			XMLStreamReader xmlStreamReader = BcfSchema.createXmlStreamReader(new FakeClosingInputStream(zipInputStream));
+			try {
+				return schema.unmarshal(xmlStreamReader, readOptions);
+			} finally {
+				xmlStreamReader.close();
+			}
+		} catch (XMLStreamException e) {
+			throw new BcfException(e);
+		} catch (JAXBException e) {
+			throw new BcfException(e);
+		}
+	}
+
+	/**
+	 * The project of the BCF file, available once the reader has passed the
+	 * project.bcfp entry.
+	 */
+	public Project getProject() {
+		return project;
+	}
+
+	public Version getVersion() {
+		return version;
+	}
+
+	@Override
+	public void close() throws IOException {
+		finished = true;
+		nextEvent = null;
+		zipInputStream.close();
+	}
+}
@@ -0,0 +1,228 @@
+package org.opensourcebim.bcf;
+
+/******************************************************************************
+ * Copyright (C) 2009-2018  BIMserver.org
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see {@literal<http://www.gnu.org/licenses/>}.
+ *****************************************************************************/
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.OffsetDateTime;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Marshaller;
+import javax.xml.bind.Unmarshaller;
+import javax.xml.stream.StreamFilter;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.opensourcebim.bcf.markup.Comment;
+import org.opensourcebim.bcf.markup.Markup;
+import org.opensourcebim.bcf.markup.Topic;
+import org.opensourcebim.bcf.markup.ViewPoint;
+import org.opensourcebim.bcf.project.ProjectExtension;
+import org.opensourcebim.bcf.version.Version;
+import org.opensourcebim.bcf.visinfo.VisualizationInfo;
+
+/**
+ * The XML documents of a BCF file. The schemas share the {@link BcfContext}
+ * and each keeps a bounded pool of (un)marshallers, which are not
+ * thread-safe themselves, so any number of files can be read and written
+ * concurrently.
+ */
+enum BcfSchema {
+	MARKUP(Markup.class),
+	VISUALIZATION_INFO(VisualizationInfo.class),
+	PROJECT(ProjectExtension.class),
+	VERSION(Version.class);
+
+	private static final XMLInputFactory XML_INPUT_FACTORY = createXmlInputFactory();
+
+	private final Class<?> rootClass;
+	private final Queue<Unmarshaller> unmarshallers = createPool();
+	private final Queue<Marshaller> marshallers = createPool();
+
+	private BcfSchema(Class<?> rootClass) {
+		this.rootClass = rootClass;
+	}
+
+	/**
+	 * Keeps at most one (un)marshaller per processor, the ones created on top
+	 * of that during a burst of parallel reads are dropped when they are
+	 * returned to the full pool.
+	 */
+	private static <T> Queue<T> createPool() {
+		return new ArrayBlockingQueue<>(Runtime.getRuntime().availableProcessors());
+	}
+
+	private static XMLInputFactory createXmlInputFactory() {
+		XMLInputFactory xmlInputFactory = XMLInputFactory.newInstance();
+		xmlInputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+		xmlInputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+		return xmlInputFactory;
+	}
+
+	static XMLStreamReader createXmlStreamReader(InputStream inputStream) throws XMLStreamException {
+		return XML_INPUT_FACTORY.createXMLStreamReader(inputStream);
+	}
+
+	JAXBContext getJaxbContext() throws JAXBException {
+		return BcfContext.get().getJaxbContext();
+	}
+
+	/**
+	 * Marshals and unmarshals a small document, leaving the (un)marshaller
+	 * that were used in the pools.
+	 */
+	void warmUp() throws JAXBException {
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		marshal(createSample(), outputStream);
+		unmarshal(new ByteArrayInputStream(outputStream.toByteArray()));
+	}
+
+	private Object createSample() {
+		switch (this) {
+		case MARKUP:
+			Markup markup = new Markup();
+			Topic topic = new Topic();
+			topic.setGuid(UUID.randomUUID().toString());
+			topic.setTitle("Topic");
+			topic.setCreationDate(OffsetDateTime.now());
+			topic.getLabels().add("Label");
+			markup.setTopic(topic);
+			Comment comment = new Comment();
+			comment.setGuid(UUID.randomUUID().toString());
+			comment.setDate(OffsetDateTime.now());
+			comment.setComment("Comment");
+			markup.getComment().add(comment);
+			ViewPoint viewPoint = new ViewPoint();
+			viewPoint.setGuid(UUID.randomUUID().toString());
+			viewPoint.setViewpoint(TopicFolder.DEFAULT_VIEWPOINT);
+			markup.getViewpoints().add(viewPoint);
+			return markup;
+		case VISUALIZATION_INFO:
+			VisualizationInfo visualizationInfo = new VisualizationInfo();
+			visualizationInfo.setGuid(UUID.randomUUID().toString());
+			return visualizationInfo;
+		case PROJECT:
+			return new ProjectExtension();
+		default:
+			return new Version();
+		}
+	}
+
+	Object unmarshal(InputStream inputStream) throws JAXBException {
+		return unmarshal(inputStream, (Unmarshaller.Listener) null);
+	}
+
+	/**
+	 * Unmarshals a document, the listener (which may be null) is only used for
+	 * this document.
+	 */
+	Object unmarshal(InputStream inputStream, Unmarshaller.Listener listener) throws JAXBException {
+		Unmarshaller unmarshaller = unmarshallers.poll();
+		if (unmarshaller == null) {
+			unmarshaller = getJaxbContext().createUnmarshaller();
+		}
+		try {
+			unmarshaller.setListener(listener);
+			return checkRoot(unmarshaller.unmarshal(inputStream));
+		} finally {
+			unmarshaller.setListener(null);
+			unmarshallers.offer(unmarshaller);
+		}
+	}
+
+	/**
+	 * Unmarshals a document applying the given read options, elements that are
+	 * not read are filtered out by a StAX reader before JAXB sees them.
+	 */
+	Object unmarshal(InputStream inputStream, ReadOptions readOptions) throws JAXBException {
+		if (readOptions.getStreamFilter(this) == null) {
+			return unmarshal(inputStream, readOptions.getUnmarshalListener());
+		}
+		try {
+			XMLStreamReader xmlStreamReader = createXmlStreamReader(inputStream);
+			try {
+				return unmarshal(xmlStreamReader, readOptions);
+			} finally {
+				xmlStreamReader.close();
+			}
+		} catch (XMLStreamException e) {
+			throw new JAXBException(e);
+		}
+	}
+
+	Object unmarshal(XMLStreamReader xmlStreamReader, ReadOptions readOptions) throws JAXBException {
+		StreamFilter streamFilter = readOptions.getStreamFilter(this);
+		if (streamFilter != null) {
+			try {
+				xmlStreamReader = XML_INPUT_FACTORY.createFilteredReader(xmlStreamReader, streamFilter);
+			} catch (XMLStreamException e) {
+				throw new JAXBException(e);
+			}
+		}
+		return unmarshal(xmlStreamReader, readOptions.getUnmarshalListener());
+	}
+
+	Object unmarshal(XMLStreamReader xmlStreamReader) throws JAXBException {
+		return unmarshal(xmlStreamReader, (Unmarshaller.Listener) null);
+	}
+
+	Object unmarshal(XMLStreamReader xmlStreamReader, Unmarshaller.Listener listener) throws JAXBException {
+		Unmarshaller unmarshaller = unmarshallers.poll();
+		if (unmarshaller == null) {
+			unmarshaller = getJaxbContext().createUnmarshaller();
+		}
+		try {
+			unmarshaller.setListener(listener);
+			return checkRoot(unmarshaller.unmarshal(xmlStreamReader));
+		} finally {
+			unmarshaller.setListener(null);
+			unmarshallers.offer(unmarshaller);
+		}
+	}
+
+	/**
+	 * The shared context knows the root elements of all schemas, so a document
+	 * of another schema has to be rejected here.
+	 */
+	private Object checkRoot(Object object) throws JAXBException {
+		if (!rootClass.isInstance(object)) {
+			throw new JAXBException("Expected " + rootClass.getSimpleName() + " but found " + object.getClass().getSimpleName());
+		}
+		return object;
+	}
+
+	void marshal(Object object, OutputStream outputStream) throws JAXBException {
+		Marshaller marshaller = marshallers.poll();
+		if (marshaller == null) {
+			marshaller = getJaxbContext().createMarshaller();
+			marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, true);
+		}
+		try {
+			marshaller.marshal(object, outputStream);
+		} finally {
+			marshallers.offer(marshaller);
+		}
+	}
+}
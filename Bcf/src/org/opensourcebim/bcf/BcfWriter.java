@@ -0,0 +1,299 @@
+package org.opensourcebim.bcf;
+
+/******************************************************************************
+ * Copyright (C) 2009-2018  BIMserver.org
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see {@literal<http://www.gnu.org/licenses/>}.
+ *****************************************************************************/
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+import javax.xml.bind.JAXBException;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.output.CountingOutputStream;
+import org.apache.commons.io.output.NullOutputStream;
+import org.opensourcebim.bcf.markup.Markup;
+import org.opensourcebim.bcf.project.Project;
+import org.opensourcebim.bcf.project.ProjectExtension;
+import org.opensourcebim.bcf.version.Version;
+import org.opensourcebim.bcf.visinfo.VisualizationInfo;
+import org.opensourcebim.bcf.zip.RawZipEntry;
+import org.opensourcebim.bcf.zip.ZipWriter;
+
+/**
+ * Writes a BCF file incrementally. The project and version are written when
+ * the writer is created, after that topic folders or their individual parts
+ * are written and flushed one at a time, so they do not have to be kept in
+ * memory until the whole file is written. Every entry is compressed before it
+ * is written according to the {@link WriteOptions}, which also allows topic
+ * folders to be prepared on an executor.
+ */
+public class BcfWriter implements Closeable {
+	private final ZipWriter zipWriter;
+	private final WriteOptions writeOptions;
+
+	public BcfWriter(OutputStream outputStream) throws BcfException, IOException {
+		this(outputStream, (Project) null, WriteOptions.DEFAULT);
+	}
+
+	public BcfWriter(OutputStream outputStream, Project project) throws BcfException, IOException {
+		this(outputStream, project, WriteOptions.DEFAULT);
+	}
+
+	public BcfWriter(OutputStream outputStream, Project project, WriteOptions writeOptions) throws BcfException, IOException {
+		this(outputStream, toProjectExtension(project), writeOptions);
+	}
+
+	/**
+	 * Writes the project file as it was read, including its extension schema.
+	 */
+	BcfWriter(OutputStream outputStream, ProjectExtension projectExtension, WriteOptions writeOptions) throws BcfException, IOException {
+		this.zipWriter = new ZipWriter(outputStream);
+		this.writeOptions = writeOptions;
+		if (projectExtension != null) {
+			writeDocument("project.bcfp", BcfSchema.PROJECT, projectExtension);
+		}
+
+		Version version = new Version();
+		version.setVersionId("2.1");
+		version.setDetailedVersion("2.1");
+		writeDocument("bcf.version", BcfSchema.VERSION, version);
+	}
+
+	private static ProjectExtension toProjectExtension(Project project) {
+		if (project == null) {
+			return null;
+		}
+		ProjectExtension projectExtension = new ProjectExtension();
+		projectExtension.setProject(project);
+		return projectExtension;
+	}
+
+	/**
+	 * Writes the parts of a topic folder. Snapshots are streamed into the file
+	 * from where they are held, documents are marshalled and compressed
+	 * before they are written.
+	 */
+	public void write(TopicFolder topicFolder) throws BcfException, IOException {
+		for (TopicFolder.Part part : topicFolder.getParts()) {
+			RawZipEntry rawEntry = part.getRawEntry();
+			if (rawEntry != null) {
+				zipWriter.write(rawEntry);
+			} else if (part.isAttachment()) {
+				writeStreamed(part);
+			} else {
+				zipWriter.write(prepare(part, writeOptions));
+			}
+		}
+		zipWriter.flush();
+	}
+
+	/**
+	 * Writes a part without holding its content, a stored part is read twice
+	 * as its checksum and size have to precede its data.
+	 */
+	private void writeStreamed(TopicFolder.Part part) throws BcfException, IOException {
+		if (writeOptions.isStored(part.getName())) {
+			CRC32 crc = new CRC32();
+			CountingOutputStream countingOutputStream = new CountingOutputStream(new CheckedOutputStream(NullOutputStream.INSTANCE, crc));
+			part.write(countingOutputStream);
+			try (OutputStream outputStream = zipWriter.openStored(part.getName(), crc.getValue(), countingOutputStream.getByteCount())) {
+				part.write(outputStream);
+			}
+		} else {
+			try (OutputStream outputStream = zipWriter.openDeflated(part.getName(), writeOptions.getCompressionLevel())) {
+				part.write(outputStream);
+			}
+		}
+	}
+
+	/**
+	 * Writes the given topic folders in order. When the write options have an
+	 * executor, the entries of upcoming topic folders are marshalled and
+	 * compressed in parallel while earlier ones are written. Those entries,
+	 * snapshots included, are then held in memory until they are written, for
+	 * at most {@link WriteOptions#getMaxPendingTopics()} topic folders.
+	 */
+	public void writeAll(Iterable<TopicFolder> topicFolders) throws BcfException, IOException {
+		Executor executor = writeOptions.getExecutor();
+		if (executor == null) {
+			for (TopicFolder topicFolder : topicFolders) {
+				write(topicFolder);
+			}
+			return;
+		}
+		Deque<FutureTask<List<RawZipEntry>>> pending = new ArrayDeque<>();
+		try {
+			for (TopicFolder topicFolder : topicFolders) {
+				FutureTask<List<RawZipEntry>> task = new FutureTask<>(() -> prepare(topicFolder));
+				executor.execute(task);
+				pending.add(task);
+				if (pending.size() >= writeOptions.getMaxPendingTopics()) {
+					writeEntries(getResult(pending.poll()));
+				}
+			}
+			while (!pending.isEmpty()) {
+				writeEntries(getResult(pending.poll()));
+			}
+		} finally {
+			for (FutureTask<List<RawZipEntry>> task : pending) {
+				task.cancel(false);
+			}
+		}
+	}
+
+	private static List<RawZipEntry> getResult(FutureTask<List<RawZipEntry>> task) throws BcfException, IOException {
+		try {
+			return task.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new BcfException(e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException) {
+				throw (IOException) e.getCause();
+			} else if (e.getCause() instanceof BcfException) {
+				throw (BcfException) e.getCause();
+			} else if (e.getCause() instanceof Exception) {
+				throw new BcfException((Exception) e.getCause());
+			}
+			throw new BcfException(e);
+		}
+	}
+
+	private List<RawZipEntry> prepare(TopicFolder topicFolder) throws BcfException, IOException {
+		List<RawZipEntry> entries = new ArrayList<>();
+		for (TopicFolder.Part part : topicFolder.getParts()) {
+			entries.add(prepare(part, writeOptions));
+		}
+		return entries;
+	}
+
+	static RawZipEntry prepare(TopicFolder.Part part, WriteOptions writeOptions) throws BcfException, IOException {
+		RawZipEntry rawEntry = part.getRawEntry();
+		if (rawEntry != null) {
+			return rawEntry;
+		}
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		part.write(outputStream);
+		return createEntry(part.getName(), outputStream.toByteArray(), writeOptions);
+	}
+
+	/**
+	 * Copies an entry of an opened BCF file as it is, for entries that were
+	 * not read into the BcfFile being written. Nothing is copied when an entry
+	 * with that name has been written already.
+	 */
+	void copy(BcfArchive archive, String name) throws IOException {
+		if (zipWriter.contains(name)) {
+			return;
+		}
+		RawZipEntry rawEntry = archive.getRawEntry(name, name);
+		zipWriter.write(rawEntry == null ? createEntry(name, archive.read(name), writeOptions) : rawEntry);
+		zipWriter.flush();
+	}
+
+	private void writeEntries(List<RawZipEntry> entries) throws IOException {
+		for (RawZipEntry entry : entries) {
+			zipWriter.write(entry);
+		}
+		zipWriter.flush();
+	}
+
+	public void writeMarkup(UUID topicUuid, Markup markup) throws BcfException, IOException {
+		writeDocument(topicUuid.toString() + "/markup.bcf", BcfSchema.MARKUP, markup);
+		zipWriter.flush();
+	}
+
+	public void writeViewpoint(UUID topicUuid, String fileName, VisualizationInfo visualizationInfo) throws BcfException, IOException {
+		writeDocument(topicUuid.toString() + "/" + fileName, BcfSchema.VISUALIZATION_INFO, visualizationInfo);
+		zipWriter.flush();
+	}
+
+	public void writeSnapshot(UUID topicUuid, String fileName, byte[] data) throws IOException {
+		zipWriter.write(createEntry(topicUuid.toString() + "/" + fileName, data, writeOptions));
+		zipWriter.flush();
+	}
+
+	/**
+	 * Streams the remaining content of the stream into the file without
+	 * holding it in memory. The checksum and size of a stored entry precede
+	 * its data, so such an entry is copied to a temporary file first.
+	 */
+	public void writeSnapshot(UUID topicUuid, String fileName, InputStream inputStream) throws IOException {
+		String name = topicUuid.toString() + "/" + fileName;
+		if (writeOptions.isStored(name)) {
+			Path temp = Files.createTempFile("bcf", ".tmp");
+			try {
+				CRC32 crc = new CRC32();
+				long size;
+				try (OutputStream outputStream = new CheckedOutputStream(Files.newOutputStream(temp), crc)) {
+					size = IOUtils.copyLarge(inputStream, outputStream);
+				}
+				try (OutputStream outputStream = zipWriter.openStored(name, crc.getValue(), size)) {
+					Files.copy(temp, outputStream);
+				}
+			} finally {
+				Files.delete(temp);
+			}
+		} else {
+			try (OutputStream outputStream = zipWriter.openDeflated(name, writeOptions.getCompressionLevel())) {
+				IOUtils.copyLarge(inputStream, outputStream);
+			}
+		}
+		zipWriter.flush();
+	}
+
+	private void writeDocument(String name, BcfSchema schema, Object document) throws BcfException, IOException {
+		zipWriter.write(createEntry(name, marshal(schema, document), writeOptions));
+	}
+
+	static byte[] marshal(BcfSchema schema, Object document) throws BcfException {
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		try {
+			schema.marshal(document, outputStream);
+		} catch (JAXBException e) {
+			throw new BcfException(e);
+		}
+		return outputStream.toByteArray();
+	}
+
+	static RawZipEntry createEntry(String name, byte[] data, WriteOptions writeOptions) {
+		if (writeOptions.isStored(name)) {
+			return RawZipEntry.stored(name, data);
+		}
+		return RawZipEntry.deflated(name, data, writeOptions.getCompressionLevel());
+	}
+
+	@Override
+	public void close() throws IOException {
+		zipWriter.close();
+	}
+}
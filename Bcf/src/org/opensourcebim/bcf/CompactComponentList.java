@@ -0,0 +1,316 @@
+package org.opensourcebim.bcf;
+
+/******************************************************************************
+ * Copyright (C) 2009-2018  BIMserver.org
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see {@literal<http://www.gnu.org/licenses/>}.
+ *****************************************************************************/
+
+import java.lang.reflect.Field;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+import javax.xml.bind.Unmarshaller;
+
+import org.opensourcebim.bcf.visinfo.Component;
+import org.opensourcebim.bcf.visinfo.ComponentColoring;
+import org.opensourcebim.bcf.visinfo.ComponentSelection;
+import org.opensourcebim.bcf.visinfo.ComponentVisibility;
+import org.opensourcebim.bcf.visinfo.Components;
+import org.opensourcebim.bcf.visinfo.VisualizationInfo;
+
+/**
+ * A list of components that keeps them in primitive arrays instead of
+ * objects. IfcGuids are packed into two longs, originating systems and
+ * authoring tool ids are kept in a string pool and referenced by their
+ * position in it. Components are created when they are requested, so changing
+ * a returned component does not change the list, it has to be set again.
+ * 
+ * The list can take the place of the component lists of a viewpoint, either
+ * while the viewpoint is read (see {@link ReadOptions#setCompactComponents})
+ * or afterwards through {@link #compact(VisualizationInfo)}. JAXB marshals it
+ * like any other list.
+ */
+public class CompactComponentList extends AbstractList<Component> implements RandomAccess {
+	private static final String IFC_GUID_CHARACTERS = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz_$";
+	private static final int[] IFC_GUID_VALUES = new int[128];
+	private static final byte NO_GUID = 0;
+	private static final byte PACKED_GUID = 1;
+	private static final byte POOLED_GUID = 2;
+	private static final Field SELECTION_COMPONENTS = getComponentField(ComponentSelection.class);
+	private static final Field EXCEPTION_COMPONENTS = getComponentField(ComponentVisibility.Exceptions.class);
+	private static final Field COLOR_COMPONENTS = getComponentField(ComponentColoring.Color.class);
+
+	static {
+		Arrays.fill(IFC_GUID_VALUES, -1);
+		for (int i = 0; i < IFC_GUID_CHARACTERS.length(); i++) {
+			IFC_GUID_VALUES[IFC_GUID_CHARACTERS.charAt(i)] = i;
+		}
+	}
+
+	/**
+	 * Installs compact lists in the component containers of a viewpoint while
+	 * it is unmarshalled, before their components are added.
+	 */
+	static final Unmarshaller.Listener UNMARSHAL_LISTENER = new Unmarshaller.Listener() {
+		@Override
+		public void beforeUnmarshal(Object target, Object parent) {
+			if (target instanceof ComponentSelection) {
+				install(SELECTION_COMPONENTS, target);
+			} else if (target instanceof ComponentVisibility.Exceptions) {
+				install(EXCEPTION_COMPONENTS, target);
+			} else if (target instanceof ComponentColoring.Color) {
+				install(COLOR_COMPONENTS, target);
+			}
+		}
+	};
+
+	private int size;
+	private byte[] guidKinds = new byte[8];
+	private long[] guidHighs = new long[8];
+	private long[] guidLows = new long[8];
+	private int[] originatingSystems = new int[8];
+	private int[] authoringToolIds = new int[8];
+	private final List<String> strings = new ArrayList<>();
+	private final Map<String, Integer> stringIndexes = new HashMap<>();
+
+	public CompactComponentList() {
+	}
+
+	public CompactComponentList(Collection<? extends Component> components) {
+		ensureCapacity(components.size());
+		addAll(components);
+	}
+
+	/**
+	 * Replaces the component lists of the given viewpoint by compact lists
+	 * with the same components.
+	 */
+	public static void compact(VisualizationInfo visualizationInfo) {
+		Components components = visualizationInfo.getComponents();
+		if (components == null) {
+			return;
+		}
+		if (components.getSelection() != null) {
+			replace(SELECTION_COMPONENTS, components.getSelection());
+		}
+		if (components.getVisibility() != null && components.getVisibility().getExceptions() != null) {
+			replace(EXCEPTION_COMPONENTS, components.getVisibility().getExceptions());
+		}
+		if (components.getColoring() != null) {
+			for (ComponentColoring.Color color : components.getColoring().getColor()) {
+				replace(COLOR_COMPONENTS, color);
+			}
+		}
+	}
+
+	private static Field getComponentField(Class<?> containerClass) {
+		try {
+			Field field = containerClass.getDeclaredField("component");
+			field.setAccessible(true);
+			return field;
+		} catch (NoSuchFieldException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static void install(Field field, Object container) {
+		try {
+			field.set(container, new CompactComponentList());
+		} catch (IllegalAccessException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private static void replace(Field field, Object container) {
+		try {
+			List<Component> list = (List<Component>) field.get(container);
+			if (list != null && !(list instanceof CompactComponentList)) {
+				field.set(container, new CompactComponentList(list));
+			}
+		} catch (IllegalAccessException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public Component get(int index) {
+		checkIndex(index, size);
+		Component component = new Component();
+		switch (guidKinds[index]) {
+		case PACKED_GUID:
+			component.setIfcGuid(unpackIfcGuid(guidHighs[index], guidLows[index]));
+			break;
+		case POOLED_GUID:
+			component.setIfcGuid(strings.get((int) guidLows[index]));
+			break;
+		default:
+			break;
+		}
+		component.setOriginatingSystem(getString(originatingSystems[index]));
+		component.setAuthoringToolId(getString(authoringToolIds[index]));
+		return component;
+	}
+
+	/**
+	 * The IfcGuid of a component, without creating the component.
+	 */
+	public String getIfcGuid(int index) {
+		checkIndex(index, size);
+		if (guidKinds[index] == PACKED_GUID) {
+			return unpackIfcGuid(guidHighs[index], guidLows[index]);
+		}
+		return guidKinds[index] == POOLED_GUID ? strings.get((int) guidLows[index]) : null;
+	}
+
+	@Override
+	public Component set(int index, Component component) {
+		Component previous = get(index);
+		store(index, component);
+		return previous;
+	}
+
+	@Override
+	public void add(int index, Component component) {
+		checkIndex(index, size + 1);
+		ensureCapacity(size + 1);
+		if (index < size) {
+			shift(index, index + 1, size - index);
+		}
+		size++;
+		store(index, component);
+		modCount++;
+	}
+
+	@Override
+	public Component remove(int index) {
+		Component previous = get(index);
+		shift(index + 1, index, size - index - 1);
+		size--;
+		modCount++;
+		return previous;
+	}
+
+	@Override
+	public void clear() {
+		size = 0;
+		strings.clear();
+		stringIndexes.clear();
+		modCount++;
+	}
+
+	private void store(int index, Component component) {
+		String ifcGuid = component.getIfcGuid();
+		if (ifcGuid == null) {
+			guidKinds[index] = NO_GUID;
+		} else if (isPackable(ifcGuid)) {
+			guidKinds[index] = PACKED_GUID;
+			long high = 0;
+			long low = IFC_GUID_VALUES[ifcGuid.charAt(0)];
+			for (int i = 1; i < 22; i++) {
+				high = high << 6 | low >>> 58;
+				low = low << 6 | IFC_GUID_VALUES[ifcGuid.charAt(i)];
+			}
+			guidHighs[index] = high;
+			guidLows[index] = low;
+		} else {
+			guidKinds[index] = POOLED_GUID;
+			guidLows[index] = poolString(ifcGuid);
+		}
+		originatingSystems[index] = poolString(component.getOriginatingSystem());
+		authoringToolIds[index] = poolString(component.getAuthoringToolId());
+	}
+
+	/**
+	 * Whether the IfcGuid is in the compressed 22 character form, the first
+	 * character only holds the upper two bits of the 128 bit value.
+	 */
+	private static boolean isPackable(String ifcGuid) {
+		if (ifcGuid.length() != 22 || ifcGuid.charAt(0) > '3' || ifcGuid.charAt(0) < '0') {
+			return false;
+		}
+		for (int i = 1; i < 22; i++) {
+			char c = ifcGuid.charAt(i);
+			if (c >= 128 || IFC_GUID_VALUES[c] == -1) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static String unpackIfcGuid(long high, long low) {
+		char[] chars = new char[22];
+		for (int i = 21; i > 0; i--) {
+			chars[i] = IFC_GUID_CHARACTERS.charAt((int) (low & 63));
+			low = low >>> 6 | high << 58;
+			high >>>= 6;
+		}
+		chars[0] = IFC_GUID_CHARACTERS.charAt((int) (low & 3));
+		return new String(chars);
+	}
+
+	private int poolString(String string) {
+		if (string == null) {
+			return -1;
+		}
+		Integer index = stringIndexes.get(string);
+		if (index == null) {
+			index = strings.size();
+			strings.add(string);
+			stringIndexes.put(string, index);
+		}
+		return index;
+	}
+
+	private String getString(int index) {
+		return index == -1 ? null : strings.get(index);
+	}
+
+	private void shift(int from, int to, int length) {
+		System.arraycopy(guidKinds, from, guidKinds, to, length);
+		System.arraycopy(guidHighs, from, guidHighs, to, length);
+		System.arraycopy(guidLows, from, guidLows, to, length);
+		System.arraycopy(originatingSystems, from, originatingSystems, to, length);
+		System.arraycopy(authoringToolIds, from, authoringToolIds, to, length);
+	}
+
+	private void ensureCapacity(int capacity) {
+		if (capacity > guidKinds.length) {
+			int newCapacity = Math.max(capacity, guidKinds.length * 2);
+			guidKinds = Arrays.copyOf(guidKinds, newCapacity);
+			guidHighs = Arrays.copyOf(guidHighs, newCapacity);
+			guidLows = Arrays.copyOf(guidLows, newCapacity);
+			originatingSystems = Arrays.copyOf(originatingSystems, newCapacity);
+			authoringToolIds = Arrays.copyOf(authoringToolIds, newCapacity);
+		}
+	}
+
+	private static void checkIndex(int index, int size) {
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+		}
+	}
+}
@@ -0,0 +1,196 @@
+package org.opensourcebim.bcf;
+
+/******************************************************************************
+ * Copyright (C) 2009-2018  BIMserver.org
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see {@literal<http://www.gnu.org/licenses/>}.
+ *****************************************************************************/
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import org.opensourcebim.bcf.visinfo.Component;
+import org.opensourcebim.bcf.visinfo.ComponentColoring;
+import org.opensourcebim.bcf.visinfo.Components;
+import org.opensourcebim.bcf.visinfo.VisualizationInfo;
+
+/**
+ * Maps the IfcGuid and AuthoringToolId of every component referenced by a
+ * viewpoint to the topics and viewpoints referencing it. Every viewpoint is
+ * numbered once, a component only keeps an array of numbers combined with how
+ * the viewpoint uses the component.
+ */
+public class ComponentIndex {
+	public enum Usage {
+		SELECTION, VISIBILITY_EXCEPTION, COLORING
+	}
+
+	private static final int USAGE_BITS = 2;
+
+	private final List<UUID> topicFolderUuids = new ArrayList<>();
+	private final List<String> viewpoints = new ArrayList<>();
+	private final Map<String, int[]> ifcGuids = new HashMap<>();
+	private final Map<String, int[]> authoringToolIds = new HashMap<>();
+
+	/**
+	 * Builds the index in one pass over the viewpoints of the given topic
+	 * folders, which are loaded if needed.
+	 */
+	public static ComponentIndex build(Iterable<TopicFolder> topicFolders) {
+		ComponentIndex componentIndex = new ComponentIndex();
+		for (TopicFolder topicFolder : topicFolders) {
+			for (String fileName : topicFolder.getViewpointFileNames()) {
+				VisualizationInfo visualizationInfo = topicFolder.readVisualizationInfo(fileName);
+				if (visualizationInfo != null && visualizationInfo.getComponents() != null) {
+					componentIndex.add(topicFolder.getUuid(), fileName, visualizationInfo.getComponents());
+				}
+			}
+		}
+		componentIndex.trim(componentIndex.ifcGuids);
+		componentIndex.trim(componentIndex.authoringToolIds);
+		return componentIndex;
+	}
+
+	private void add(UUID topicFolderUuid, String fileName, Components components) {
+		int viewpoint = topicFolderUuids.size();
+		topicFolderUuids.add(topicFolderUuid);
+		viewpoints.add(fileName);
+		if (components.getSelection() != null) {
+			add(viewpoint, Usage.SELECTION, components.getSelection().getComponent());
+		}
+		if (components.getVisibility() != null && components.getVisibility().getExceptions() != null) {
+			add(viewpoint, Usage.VISIBILITY_EXCEPTION, components.getVisibility().getExceptions().getComponent());
+		}
+		if (components.getColoring() != null) {
+			for (ComponentColoring.Color color : components.getColoring().getColor()) {
+				add(viewpoint, Usage.COLORING, color.getComponent());
+			}
+		}
+	}
+
+	private void add(int viewpoint, Usage usage, List<Component> components) {
+		int posting = viewpoint << USAGE_BITS | usage.ordinal();
+		for (Component component : components) {
+			if (component.getIfcGuid() != null) {
+				add(ifcGuids, component.getIfcGuid(), posting);
+			}
+			if (component.getAuthoringToolId() != null) {
+				add(authoringToolIds, component.getAuthoringToolId(), posting);
+			}
+		}
+	}
+
+	/**
+	 * Appends to the array of a key, which is grown by doubling and holds its
+	 * length in the first element until it is trimmed.
+	 */
+	private static void add(Map<String, int[]> postings, String key, int posting) {
+		int[] array = postings.get(key);
+		if (array == null) {
+			array = new int[2];
+			postings.put(key, array);
+		} else if (array[array[0]] == posting) {
+			return;
+		} else if (array[0] + 1 == array.length) {
+			array = Arrays.copyOf(array, array.length * 2);
+			postings.put(key, array);
+		}
+		array[++array[0]] = posting;
+	}
+
+	private void trim(Map<String, int[]> postings) {
+		for (Map.Entry<String, int[]> entry : postings.entrySet()) {
+			int[] array = entry.getValue();
+			entry.setValue(Arrays.copyOfRange(array, 1, array[0] + 1));
+		}
+	}
+
+	public List<ComponentReference> findByIfcGuid(String ifcGuid) {
+		return toReferences(ifcGuids.get(ifcGuid));
+	}
+
+	public List<ComponentReference> findByAuthoringToolId(String authoringToolId) {
+		return toReferences(authoringToolIds.get(authoringToolId));
+	}
+
+	/**
+	 * The topic folders having a viewpoint that references the component, in
+	 * file order.
+	 */
+	public Set<UUID> getTopicFolderUuids(String ifcGuid) {
+		Set<UUID> uuids = new LinkedHashSet<>();
+		for (ComponentReference reference : findByIfcGuid(ifcGuid)) {
+			uuids.add(reference.getTopicFolderUuid());
+		}
+		return uuids;
+	}
+
+	public Set<String> getIfcGuids() {
+		return Collections.unmodifiableSet(ifcGuids.keySet());
+	}
+
+	private List<ComponentReference> toReferences(int[] postings) {
+		if (postings == null) {
+			return Collections.emptyList();
+		}
+		List<ComponentReference> references = new ArrayList<>(postings.length);
+		for (int posting : postings) {
+			int viewpoint = posting >>> USAGE_BITS;
+			references.add(new ComponentReference(topicFolderUuids.get(viewpoint), viewpoints.get(viewpoint), Usage.values()[posting & ((1 << USAGE_BITS) - 1)]));
+		}
+		return references;
+	}
+
+	/**
+	 * A viewpoint of a topic folder that references a component.
+	 */
+	public static class ComponentReference {
+		private final UUID topicFolderUuid;
+		private final String viewpoint;
+		private final Usage usage;
+
+		ComponentReference(UUID topicFolderUuid, String viewpoint, Usage usage) {
+			this.topicFolderUuid = topicFolderUuid;
+			this.viewpoint = viewpoint;
+			this.usage = usage;
+		}
+
+		public UUID getTopicFolderUuid() {
+			return topicFolderUuid;
+		}
+
+		/**
+		 * The file name of the viewpoint in the topic folder.
+		 */
+		public String getViewpoint() {
+			return viewpoint;
+		}
+
+		public Usage getUsage() {
+			return usage;
+		}
+
+		@Override
+		public String toString() {
+			return topicFolderUuid + "/" + viewpoint + " " + usage;
+		}
+	}
+}
@@ -17,6 +17,83 @@ package org.opensourcebim.bcf;
  * along with this program.  If not, see {@literal<http://www.gnu.org/licenses/>}.
  *****************************************************************************/
 
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * A model embedded in a BCF file. The model is not read with the BCF file,
+ * when it was read from a file on disk it can be opened later on. Models in a
+ * BCF file read from a stream are only known by name.
+ */
 public class IfcFileReference {
+	private final Path path;
+	private final String name;
+	private final long size;
+
+	public IfcFileReference() {
+		this(null, null, -1);
+	}
+
+	IfcFileReference(Path path, String name, long size) {
+		this.path = path;
+		this.name = name;
+		this.size = size;
+	}
+
+	/**
+	 * The name of the zip entry holding the model.
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * The uncompressed size of the model, or -1 when it is not known.
+	 */
+	public long getSize() {
+		return size;
+	}
+
+	public boolean isAvailable() {
+		return path != null;
+	}
+
+	/**
+	 * Opens the model for reading, closing the stream also closes the BCF file
+	 * it is read from.
+	 */
+	public InputStream openStream() throws IOException {
+		if (path == null) {
+			throw new IOException("The content of " + name + " has not been kept");
+		}
+		ZipFile zipFile = new ZipFile(path.toFile());
+		try {
+			ZipEntry zipEntry = zipFile.getEntry(name);
+			if (zipEntry == null) {
+				throw new IOException("No entry " + name + " in " + path);
+			}
+			return new FilterInputStream(zipFile.getInputStream(zipEntry)) {
+				@Override
+				public void close() throws IOException {
+					try {
+						super.close();
+					} finally {
+						zipFile.close();
+					}
+				}
+			};
+		} catch (IOException | RuntimeException e) {
+			zipFile.close();
+			throw e;
+		}
+	}
 
+	@Override
+	public String toString() {
+		return name;
+	}
 }
@@ -0,0 +1,104 @@
+package org.opensourcebim.bcf;
+
+/******************************************************************************
+ * Copyright (C) 2009-2018  BIMserver.org
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see {@literal<http://www.gnu.org/licenses/>}.
+ *****************************************************************************/
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Selects what {@link BcfJsonWriter} writes: a projection of the fields of the
+ * topics and a page of topics, given by an offset or a cursor and a limit.
+ */
+public class JsonExportOptions extends Options {
+	/**
+	 * All fields and all topics, shared and therefore read-only.
+	 */
+	public static final JsonExportOptions DEFAULT = readOnly(new JsonExportOptions());
+	private Set<String> fields;
+	private UUID after;
+	private int offset;
+	private int limit = -1;
+
+	/**
+	 * Options writing only the given fields of the topics.
+	 */
+	public static JsonExportOptions fields(String... fields) {
+		JsonExportOptions jsonExportOptions = new JsonExportOptions();
+		jsonExportOptions.setFields(Arrays.asList(fields));
+		return jsonExportOptions;
+	}
+
+	public Set<String> getFields() {
+		return fields;
+	}
+
+	/**
+	 * The fields of the topic objects that are written, like "title" or
+	 * "modifiedDate", or null for all of them. "header" selects the header of
+	 * the topic folder, the uuid is always written.
+	 */
+	public void setFields(Collection<String> fields) {
+		checkMutable();
+		this.fields = fields == null ? null : new HashSet<>(fields);
+	}
+
+	boolean includes(String field) {
+		return fields == null || fields.contains(field);
+	}
+
+	public UUID getAfter() {
+		return after;
+	}
+
+	/**
+	 * Starts the page after the topic with this UUID, as written in the
+	 * "nextCursor" field of the previous page. No topics are written when the
+	 * topic is not found.
+	 */
+	public void setAfter(UUID after) {
+		checkMutable();
+		this.after = after;
+	}
+
+	public int getOffset() {
+		return offset;
+	}
+
+	/**
+	 * The number of topics skipped, after the cursor when one is set.
+	 */
+	public void setOffset(int offset) {
+		checkMutable();
+		this.offset = offset;
+	}
+
+	public int getLimit() {
+		return limit;
+	}
+
+	/**
+	 * The maximum number of topics written, or -1 for no limit.
+	 */
+	public void setLimit(int limit) {
+		checkMutable();
+		this.limit = limit;
+	}
+}
@@ -0,0 +1,48 @@
+package org.opensourcebim.bcf;
+
+/******************************************************************************
+ * Copyright (C) 2009-2018  BIMserver.org
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see {@literal<http://www.gnu.org/licenses/>}.
+ *****************************************************************************/
+
+/**
+ * The part shared by the option classes, whose DEFAULT instances are used by
+ * every method that takes no options and therefore cannot be changed.
+ */
+abstract class Options {
+	private boolean readOnly;
+
+	/**
+	 * Makes the given options read-only, after which their setters throw an
+	 * UnsupportedOperationException.
+	 */
+	static <T extends Options> T readOnly(T options) {
+		((Options) options).readOnly = true;
+		return options;
+	}
+
+	boolean isReadOnly() {
+		return readOnly;
+	}
+
+	/**
+	 * Called by every setter before it changes anything.
+	 */
+	void checkMutable() {
+		if (readOnly) {
+			throw new UnsupportedOperationException("The default options cannot be changed, use new " + getClass().getSimpleName() + "() instead");
+		}
+	}
+}
@@ -17,9 +17,35 @@ package org.opensourcebim.bcf;
  * along with this program.  If not, see {@literal<http://www.gnu.org/licenses/>}.
  *****************************************************************************/
 
-public class ReadOptions {
-	public static final ReadOptions DEFAULT = new ReadOptions();
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+import java.util.function.Predicate;
+
+import javax.xml.bind.Unmarshaller;
+import javax.xml.stream.StreamFilter;
+
+import org.opensourcebim.bcf.attachment.AttachmentStore;
+import org.opensourcebim.bcf.utils.ElementSkippingFilter;
+
+public class ReadOptions extends Options {
+	/**
+	 * Used by the methods that take no options, its setters throw.
+	 */
+	public static final ReadOptions DEFAULT = readOnly(new ReadOptions());
 	private boolean readViewPoints;
+	private Executor executor;
+	private AttachmentStore attachmentStore = AttachmentStore.HEAP;
+	private boolean compactComponents;
+	private StringPool stringPool;
+	private boolean readSnapshots = true;
+	private boolean readBitmaps = true;
+	private boolean readComments = true;
+	private Set<UUID> topicUuids;
+	private Predicate<String> entryFilter;
 
 	public ReadOptions() {
 		readViewPoints = true;
@@ -28,8 +54,205 @@ public class ReadOptions {
 	public ReadOptions(boolean readViewPoints) {
 		this.readViewPoints = readViewPoints;
 	}
+
+	/**
+	 * Options that only read the markups, without viewpoints and images.
+	 */
+	public static ReadOptions markupsOnly() {
+		ReadOptions readOptions = new ReadOptions(false);
+		readOptions.setReadSnapshots(false);
+		readOptions.setReadBitmaps(false);
+		return readOptions;
+	}
 	
 	public boolean isReadViewPoints() {
 		return readViewPoints;
 	}
+
+	public void setReadViewPoints(boolean readViewPoints) {
+		checkMutable();
+		this.readViewPoints = readViewPoints;
+	}
+
+	public boolean isReadSnapshots() {
+		return readSnapshots;
+	}
+
+	/**
+	 * Whether the snapshots of the topic folders are read. Images whose file
+	 * name starts with "snapshot", ignoring case, count as snapshots, like
+	 * snapshot.png and the Snapshot_&lt;guid&gt;.png files named by markups.
+	 */
+	public void setReadSnapshots(boolean readSnapshots) {
+		checkMutable();
+		this.readSnapshots = readSnapshots;
+	}
+
+	public boolean isReadBitmaps() {
+		return readBitmaps;
+	}
+
+	/**
+	 * Whether the other png, jpg and jpeg images of the topic folders are
+	 * read, like the bitmaps placed in viewpoints.
+	 */
+	public void setReadBitmaps(boolean readBitmaps) {
+		checkMutable();
+		this.readBitmaps = readBitmaps;
+	}
+
+	public boolean isReadComments() {
+		return readComments;
+	}
+
+	/**
+	 * When false, the comments of markups are skipped while they are parsed.
+	 */
+	public void setReadComments(boolean readComments) {
+		checkMutable();
+		this.readComments = readComments;
+	}
+
+	public Set<UUID> getTopicUuids() {
+		return topicUuids;
+	}
+
+	/**
+	 * Only reads the topic folders with these UUIDs, or all of them when null.
+	 */
+	public void setTopicUuids(Collection<UUID> topicUuids) {
+		checkMutable();
+		this.topicUuids = topicUuids == null ? null : new HashSet<>(topicUuids);
+	}
+
+	public Predicate<String> getEntryFilter() {
+		return entryFilter;
+	}
+
+	/**
+	 * Only reads the zip entries whose names are accepted by the filter, on
+	 * top of the other options.
+	 */
+	public void setEntryFilter(Predicate<String> entryFilter) {
+		checkMutable();
+		this.entryFilter = entryFilter;
+	}
+
+	/**
+	 * Whether the entry with the given name is read according to these
+	 * options, checked by every reader before anything is done with the entry.
+	 */
+	boolean isIncluded(String entryName) {
+		if (entryFilter != null && !entryFilter.test(entryName)) {
+			return false;
+		}
+		int slash = entryName.indexOf('/');
+		if (slash == -1) {
+			return true;
+		}
+		if (topicUuids != null) {
+			try {
+				if (!topicUuids.contains(UUID.fromString(entryName.substring(0, slash)))) {
+					return false;
+				}
+			} catch (IllegalArgumentException e) {
+				return false;
+			}
+		}
+		if (entryName.endsWith(".bcfv")) {
+			return readViewPoints;
+		} else if (TopicFolder.isImage(entryName)) {
+			return entryName.substring(slash + 1).toLowerCase(Locale.ROOT).startsWith("snapshot") ? readSnapshots : readBitmaps;
+		}
+		return true;
+	}
+
+	public Executor getExecutor() {
+		return executor;
+	}
+
+	/**
+	 * When set, markups and viewpoints read from a stream are unmarshalled on
+	 * this executor while the zip file is scanned. The topic folders are still
+	 * assembled in archive order.
+	 */
+	public void setExecutor(Executor executor) {
+		checkMutable();
+		this.executor = executor;
+	}
+
+	public AttachmentStore getAttachmentStore() {
+		return attachmentStore;
+	}
+
+	/**
+	 * Where the snapshots of the topic folders that are read are held, see
+	 * {@link org.opensourcebim.bcf.attachment.SpillingAttachmentStore} to keep
+	 * large files out of memory.
+	 */
+	public void setAttachmentStore(AttachmentStore attachmentStore) {
+		checkMutable();
+		this.attachmentStore = attachmentStore;
+	}
+
+	public boolean isCompactComponents() {
+		return compactComponents;
+	}
+
+	/**
+	 * When set, the components of viewpoints are read into
+	 * {@link CompactComponentList}s, for viewpoints listing many components.
+	 */
+	public void setCompactComponents(boolean compactComponents) {
+		checkMutable();
+		this.compactComponents = compactComponents;
+	}
+
+	public StringPool getStringPool() {
+		return stringPool;
+	}
+
+	/**
+	 * When set, values repeating across topics are deduplicated through this
+	 * pool while markups and viewpoints are read.
+	 */
+	public void setStringPool(StringPool stringPool) {
+		checkMutable();
+		this.stringPool = stringPool;
+	}
+
+	/**
+	 * The filter removing the elements that are not read according to these
+	 * options from a document, or null when nothing is removed.
+	 */
+	StreamFilter getStreamFilter(BcfSchema schema) {
+		if (schema == BcfSchema.MARKUP && !readComments) {
+			return new ElementSkippingFilter("Comment", 2);
+		}
+		return null;
+	}
+
+	/**
+	 * The listener applying these options while documents are unmarshalled,
+	 * or null when there is nothing to apply.
+	 */
+	Unmarshaller.Listener getUnmarshalListener() {
+		if (stringPool == null) {
+			return compactComponents ? CompactComponentList.UNMARSHAL_LISTENER : null;
+		}
+		if (!compactComponents) {
+			return stringPool.unmarshalListener;
+		}
+		return new Unmarshaller.Listener() {
+			@Override
+			public void beforeUnmarshal(Object target, Object parent) {
+				CompactComponentList.UNMARSHAL_LISTENER.beforeUnmarshal(target, parent);
+			}
+
+			@Override
+			public void afterUnmarshal(Object target, Object parent) {
+				stringPool.unmarshalListener.afterUnmarshal(target, parent);
+			}
+		};
+	}
 }
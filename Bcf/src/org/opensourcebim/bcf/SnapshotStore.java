@@ -0,0 +1,112 @@
+package org.opensourcebim.bcf;
+
+/******************************************************************************
+ * Copyright (C) 2009-2018  BIMserver.org
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see {@literal<http://www.gnu.org/licenses/>}.
+ *****************************************************************************/
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Content addressed store for snapshot images. Images with the same content
+ * are held as a single array, no matter which topic folder or BCF file they
+ * were read into. Arrays are only weakly referenced, an image is dropped from
+ * the store as soon as no topic folder uses it anymore. Arrays returned by the
+ * store are shared and must not be modified.
+ */
+public class SnapshotStore {
+	public static final SnapshotStore SHARED = new SnapshotStore();
+
+	private final Map<Digest, Reference> references = new HashMap<>();
+	private final ReferenceQueue<byte[]> queue = new ReferenceQueue<>();
+
+	/**
+	 * Returns the array already held for the content of the given data, or the
+	 * data itself when the content is new to the store. The data is not
+	 * copied, so it must not be modified after it has been interned.
+	 */
+	public byte[] intern(byte[] data) {
+		if (data == null) {
+			return null;
+		}
+		Digest digest = new Digest(data);
+		synchronized (this) {
+			expunge();
+			Reference reference = references.get(digest);
+			byte[] existing = reference == null ? null : reference.get();
+			if (existing != null) {
+				return existing;
+			}
+			references.put(digest, new Reference(digest, data, queue));
+			return data;
+		}
+	}
+
+	/**
+	 * The number of distinct images currently held.
+	 */
+	public synchronized int size() {
+		expunge();
+		return references.size();
+	}
+
+	private void expunge() {
+		for (java.lang.ref.Reference<? extends byte[]> reference = queue.poll(); reference != null; reference = queue.poll()) {
+			Digest digest = ((Reference) reference).digest;
+			if (references.get(digest) == reference) {
+				references.remove(digest);
+			}
+		}
+	}
+
+	private static class Reference extends WeakReference<byte[]> {
+		private final Digest digest;
+
+		Reference(Digest digest, byte[] data, ReferenceQueue<byte[]> queue) {
+			super(data, queue);
+			this.digest = digest;
+		}
+	}
+
+	private static class Digest {
+		private final byte[] hash;
+		private final int hashCode;
+
+		Digest(byte[] data) {
+			try {
+				hash = MessageDigest.getInstance("SHA-256").digest(data);
+			} catch (NoSuchAlgorithmException e) {
+				throw new IllegalStateException(e);
+			}
+			hashCode = Arrays.hashCode(hash);
+		}
+
+		@Override
+		public int hashCode() {
+			return hashCode;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			return obj instanceof Digest && Arrays.equals(hash, ((Digest) obj).hash);
+		}
+	}
+}
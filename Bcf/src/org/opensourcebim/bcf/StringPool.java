@@ -0,0 +1,101 @@
+package org.opensourcebim.bcf;
+
+/******************************************************************************
+ * Copyright (C) 2009-2018  BIMserver.org
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see {@literal<http://www.gnu.org/licenses/>}.
+ *****************************************************************************/
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.xml.bind.Unmarshaller;
+
+import org.opensourcebim.bcf.markup.Comment;
+import org.opensourcebim.bcf.markup.Header;
+import org.opensourcebim.bcf.markup.Topic;
+import org.opensourcebim.bcf.visinfo.Component;
+
+/**
+ * Deduplicates the values that repeat across topics, such as authors,
+ * assignees, statuses, types, priorities, labels, file names and originating
+ * systems. Set a pool on the {@link ReadOptions} of one file, or share it
+ * between reads so equal values of different files are held once as well.
+ * Once the pool holds its maximum number of strings, new values are no longer
+ * added to it.
+ */
+public class StringPool {
+	private final ConcurrentMap<String, String> strings = new ConcurrentHashMap<>();
+	private final int maxSize;
+
+	/**
+	 * Interns the repeating values of every object right after it has been
+	 * unmarshalled.
+	 */
+	final Unmarshaller.Listener unmarshalListener = new Unmarshaller.Listener() {
+		@Override
+		public void afterUnmarshal(Object target, Object parent) {
+			if (target instanceof Topic) {
+				Topic topic = (Topic) target;
+				topic.setTopicStatus(intern(topic.getTopicStatus()));
+				topic.setTopicType(intern(topic.getTopicType()));
+				topic.setPriority(intern(topic.getPriority()));
+				topic.setStage(intern(topic.getStage()));
+				topic.setCreationAuthor(intern(topic.getCreationAuthor()));
+				topic.setModifiedAuthor(intern(topic.getModifiedAuthor()));
+				topic.setAssignedTo(intern(topic.getAssignedTo()));
+				topic.getLabels().replaceAll(StringPool.this::intern);
+			} else if (target instanceof Comment) {
+				Comment comment = (Comment) target;
+				comment.setAuthor(intern(comment.getAuthor()));
+				comment.setModifiedAuthor(intern(comment.getModifiedAuthor()));
+			} else if (target instanceof Header.File) {
+				Header.File file = (Header.File) target;
+				file.setFilename(intern(file.getFilename()));
+				file.setReference(intern(file.getReference()));
+				file.setIfcProject(intern(file.getIfcProject()));
+				file.setIfcSpatialStructureElement(intern(file.getIfcSpatialStructureElement()));
+			} else if (target instanceof Component) {
+				((Component) target).setOriginatingSystem(intern(((Component) target).getOriginatingSystem()));
+			}
+		}
+	};
+
+	public StringPool() {
+		this(100000);
+	}
+
+	public StringPool(int maxSize) {
+		this.maxSize = maxSize;
+	}
+
+	public String intern(String string) {
+		if (string == null) {
+			return null;
+		}
+		String existing = strings.get(string);
+		if (existing != null) {
+			return existing;
+		}
+		if (strings.size() >= maxSize) {
+			return string;
+		}
+		existing = strings.putIfAbsent(string, string);
+		return existing == null ? string : existing;
+	}
+
+	public int size() {
+		return strings.size();
+	}
+}
@@ -0,0 +1,91 @@
+package org.opensourcebim.bcf;
+
+/******************************************************************************
+ * Copyright (C) 2009-2018  BIMserver.org
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see {@literal<http://www.gnu.org/licenses/>}.
+ *****************************************************************************/
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.UUID;
+
+import org.apache.commons.io.IOUtils;
+import org.opensourcebim.bcf.markup.Markup;
+import org.opensourcebim.bcf.visinfo.VisualizationInfo;
+
+/**
+ * A single part of a topic folder as produced by {@link BcfReader}. The input
+ * stream of a snapshot is only valid until the reader is advanced.
+ */
+public class TopicEvent {
+	public enum Type {
+		MARKUP, VIEWPOINT, SNAPSHOT
+	}
+
+	private final Type type;
+	private final UUID topicUuid;
+	private final String name;
+	private final Object document;
+	private final InputStream inputStream;
+
+	TopicEvent(Type type, UUID topicUuid, String name, Object document, InputStream inputStream) {
+		this.type = type;
+		this.topicUuid = topicUuid;
+		this.name = name;
+		this.document = document;
+		this.inputStream = inputStream;
+	}
+
+	public Type getType() {
+		return type;
+	}
+
+	public UUID getTopicUuid() {
+		return topicUuid;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public String getFileName() {
+		return name.substring(name.indexOf("/") + 1);
+	}
+
+	public boolean isDefaultSnapshot() {
+		return type == Type.SNAPSHOT && getFileName().equals(TopicFolder.DEFAULT_SNAPSHOT);
+	}
+
+	public Markup getMarkup() {
+		return type == Type.MARKUP ? (Markup) document : null;
+	}
+
+	public VisualizationInfo getVisualizationInfo() {
+		return type == Type.VIEWPOINT ? (VisualizationInfo) document : null;
+	}
+
+	public InputStream getInputStream() {
+		return inputStream;
+	}
+
+	public byte[] getData() throws IOException {
+		return inputStream == null ? null : IOUtils.toByteArray(inputStream);
+	}
+
+	@Override
+	public String toString() {
+		return type + " " + name;
+	}
+}
@@ -17,49 +17,56 @@ package org.opensourcebim.bcf;
  * along with this program.  If not, see {@literal<http://www.gnu.org/licenses/>}.
  *****************************************************************************/
 
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
 
-import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBException;
-import javax.xml.bind.Marshaller;
 
 import org.apache.commons.io.IOUtils;
+import org.opensourcebim.bcf.attachment.Attachment;
+import org.opensourcebim.bcf.attachment.AttachmentStore;
 import org.opensourcebim.bcf.markup.Header;
 import org.opensourcebim.bcf.markup.Markup;
 import org.opensourcebim.bcf.markup.Topic;
+import org.opensourcebim.bcf.markup.ViewPoint;
 import org.opensourcebim.bcf.visinfo.VisualizationInfo;
+import org.opensourcebim.bcf.zip.RawZipEntry;
 
 public class TopicFolder {
-	private static Marshaller MARKUP_MARSHALLER;
-	private static Marshaller VISUALIZATION_INFO_MARSHALLER;
+	public static final String DEFAULT_VIEWPOINT = "viewpoint.bcfv";
+	public static final String DEFAULT_SNAPSHOT = "snapshot.png";
 	private static byte[] dummyData;
-	private byte[] defaultSnapShot;
-	private Map<String, byte[]> snapshots;
 	private Markup markup;
-	private VisualizationInfo visualizationInfo;
+	private final Map<String, VisualizationInfo> visualizationInfos = new LinkedHashMap<>();
+	private final Map<String, Attachment> snapshots = new LinkedHashMap<>();
+	private AttachmentStore attachmentStore = AttachmentStore.HEAP;
+	private ReadOptions readOptions = ReadOptions.DEFAULT;
 	private UUID uuid;
+	private BcfArchive archive;
+	private String markupEntry;
+	private boolean markupModified;
+	private boolean markupIncomplete;
+	private final Map<String, String> visualizationInfoEntries = new HashMap<>();
+	private final Set<String> modifiedVisualizationInfos = new HashSet<>();
+	private final Map<String, String> snapshotEntries = new HashMap<>();
+	private volatile int modificationCount;
 	
-	static {
-		try {
-			JAXBContext jaxbContext = JAXBContext.newInstance(Markup.class);
-			MARKUP_MARSHALLER = jaxbContext.createMarshaller();
-			MARKUP_MARSHALLER.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, true);
-			
-			jaxbContext = JAXBContext.newInstance(VisualizationInfo.class);
-			VISUALIZATION_INFO_MARSHALLER = jaxbContext.createMarshaller();
-			VISUALIZATION_INFO_MARSHALLER.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, true);
-		} catch (JAXBException e) {
-			e.printStackTrace();
-		}
-	}
-
 	public TopicFolder(UUID uuid) {
 		this.uuid = uuid;
 	}
@@ -70,60 +77,363 @@ public class TopicFolder {
 	
 	public void setMarkup(Markup markup) {
 		this.markup = markup;
+		this.markupEntry = null;
+		this.markupModified = false;
+		this.markupIncomplete = false;
+		modificationCount++;
+	}
+
+	/**
+	 * Sets a markup that was read with the read options of this topic folder,
+	 * which may have left out its comments.
+	 */
+	void setLoadedMarkup(Markup markup) {
+		setMarkup(markup);
+		markupIncomplete = !readOptions.isReadComments();
 	}
 
 	public void setVisualizationInfo(VisualizationInfo visualizationInfo) {
-		this.visualizationInfo = visualizationInfo;
+		setVisualizationInfo(DEFAULT_VIEWPOINT, visualizationInfo);
+	}
+
+	/**
+	 * Sets the viewpoint stored as the given file in this topic folder, which
+	 * is the name referenced by {@link ViewPoint#getViewpoint()}.
+	 */
+	public void setVisualizationInfo(String fileName, VisualizationInfo visualizationInfo) {
+		fileName = toFileName(fileName);
+		visualizationInfos.put(fileName, visualizationInfo);
+		visualizationInfoEntries.remove(fileName);
+		modifiedVisualizationInfos.remove(fileName);
+		modificationCount++;
 	}
 
 	public void setDefaultSnapShot(byte[] defaultSnapShot) {
-		this.defaultSnapShot = defaultSnapShot;
+		addSnapShot(DEFAULT_SNAPSHOT, defaultSnapShot);
 	}
 
 	public byte[] getDefaultSnapShot() {
-		return defaultSnapShot;
+		return getSnapshot(DEFAULT_SNAPSHOT);
 	}
 
+	public boolean hasDefaultSnapShot() {
+		return snapshots.containsKey(DEFAULT_SNAPSHOT);
+	}
+
+	/**
+	 * Where snapshots set on or loaded into this topic folder are held, on the
+	 * heap by default.
+	 */
+	public void setAttachmentStore(AttachmentStore attachmentStore) {
+		this.attachmentStore = attachmentStore;
+	}
+
+	/**
+	 * The options applied when parts are loaded from an opened BCF file.
+	 */
+	void setReadOptions(ReadOptions readOptions) {
+		this.readOptions = readOptions;
+	}
+
+	void setArchive(BcfArchive archive) {
+		this.archive = archive;
+	}
+
+	void setMarkupEntry(String entryName) {
+		this.markup = null;
+		this.markupEntry = entryName;
+		this.markupModified = false;
+		this.markupIncomplete = false;
+		modificationCount++;
+	}
+
+	/**
+	 * Counts the replacements of the markup and viewpoints, so indexes over
+	 * the topics of a BCF file know when they are out of date.
+	 */
+	int getModificationCount() {
+		return modificationCount;
+	}
+
+	void addVisualizationInfoEntry(String entryName) {
+		String fileName = toFileName(entryName);
+		visualizationInfos.put(fileName, null);
+		visualizationInfoEntries.put(fileName, entryName);
+		modificationCount++;
+	}
+
+	void addSnapShotEntry(String entryName) {
+		String fileName = toFileName(entryName);
+		snapshots.put(fileName, null);
+		snapshotEntries.put(fileName, entryName);
+	}
+
+	/**
+	 * Names of entries are relative to the topic folder, but for compatibility
+	 * the full name of the zip entry is accepted as well.
+	 */
+	private String toFileName(String name) {
+		String prefix = uuid.toString() + "/";
+		if (name.regionMatches(true, 0, prefix, 0, prefix.length())) {
+			return name.substring(prefix.length());
+		}
+		return name;
+	}
+
+	/**
+	 * The default viewpoint of this topic folder: viewpoint.bcfv, otherwise the
+	 * first viewpoint. An empty viewpoint.bcfv is created when there are none.
+	 */
 	public VisualizationInfo getVisualizationInfo() {
-		if (visualizationInfo == null) {
-			visualizationInfo = new VisualizationInfo();
+		if (visualizationInfos.isEmpty()) {
+			visualizationInfos.put(DEFAULT_VIEWPOINT, new VisualizationInfo());
+		}
+		if (visualizationInfos.containsKey(DEFAULT_VIEWPOINT)) {
+			return getVisualizationInfo(DEFAULT_VIEWPOINT);
+		}
+		return getVisualizationInfo(visualizationInfos.keySet().iterator().next());
+	}
+
+	public VisualizationInfo getVisualizationInfo(String fileName) {
+		fileName = toFileName(fileName);
+		VisualizationInfo visualizationInfo = readVisualizationInfo(fileName);
+		if (visualizationInfoEntries.containsKey(fileName)) {
+			modifiedVisualizationInfos.add(fileName);
+		}
+		return visualizationInfo;
+	}
+
+	/**
+	 * Resolves a viewpoint for reading only, so it still counts as unmodified.
+	 * The indexes and exports of a BCF file use this, they never change the
+	 * returned objects.
+	 */
+	VisualizationInfo readVisualizationInfo(String fileName) {
+		fileName = toFileName(fileName);
+		VisualizationInfo visualizationInfo = visualizationInfos.get(fileName);
+		if (visualizationInfo == null && visualizationInfoEntries.containsKey(fileName)) {
+			visualizationInfo = (VisualizationInfo) archive.unmarshalUnchecked(visualizationInfoEntries.get(fileName), BcfSchema.VISUALIZATION_INFO, readOptions);
+			visualizationInfos.put(fileName, visualizationInfo);
 		}
 		return visualizationInfo;
 	}
 
+	public VisualizationInfo getVisualizationInfo(ViewPoint viewPoint) {
+		return viewPoint.getViewpoint() == null ? null : getVisualizationInfo(viewPoint.getViewpoint());
+	}
+
+	/**
+	 * Looks up a viewpoint by the Guid it has in the markup.
+	 */
+	public VisualizationInfo getVisualizationInfoByGuid(String guid) {
+		for (ViewPoint viewPoint : readMarkup().getViewpoints()) {
+			if (guid.equals(viewPoint.getGuid())) {
+				return getVisualizationInfo(viewPoint);
+			}
+		}
+		return null;
+	}
+
+	public Set<String> getViewpointFileNames() {
+		return Collections.unmodifiableSet(visualizationInfos.keySet());
+	}
+
+	public Set<String> getSnapshotFileNames() {
+		return Collections.unmodifiableSet(snapshots.keySet());
+	}
+
 	public Markup getMarkup() {
+		readMarkup();
+		markupModified = markupEntry != null;
+		return markup;
+	}
+
+	/**
+	 * Resolves the markup for reading only, like
+	 * {@link #readVisualizationInfo(String)}.
+	 */
+	Markup readMarkup() {
 		if (markup == null) {
-			markup = new Markup();
+			if (markupEntry != null) {
+				markup = (Markup) archive.unmarshalUnchecked(markupEntry, BcfSchema.MARKUP, readOptions);
+				markupIncomplete = !readOptions.isReadComments();
+			} else {
+				markup = new Markup();
+			}
 		}
 		return markup;
 	}
 
+	/**
+	 * Resolves all parts that are still backed by an opened BCF file, so the
+	 * topic folder stays usable after the file has been closed.
+	 */
+	public void load() throws BcfException {
+		try {
+			if (markup == null && markupEntry != null) {
+				markup = (Markup) archive.unmarshal(markupEntry, BcfSchema.MARKUP, readOptions);
+				markupIncomplete = !readOptions.isReadComments();
+			}
+			for (Map.Entry<String, String> entry : visualizationInfoEntries.entrySet()) {
+				if (visualizationInfos.get(entry.getKey()) == null) {
+					visualizationInfos.put(entry.getKey(), (VisualizationInfo) archive.unmarshal(entry.getValue(), BcfSchema.VISUALIZATION_INFO, readOptions));
+				}
+			}
+			for (Map.Entry<String, String> entry : snapshotEntries.entrySet()) {
+				if (snapshots.get(entry.getKey()) == null) {
+					snapshots.put(entry.getKey(), attachmentStore.store(archive.read(entry.getValue())));
+				}
+			}
+			markupEntry = null;
+			visualizationInfoEntries.clear();
+			snapshotEntries.clear();
+			archive = null;
+		} catch (JAXBException e) {
+			throw new BcfException(e);
+		} catch (IOException e) {
+			throw new BcfException(e);
+		}
+	}
+
+	/**
+	 * Drops every part that was loaded from an opened BCF file, they will be
+	 * read again on the next access. Modifications made to such a part through
+	 * its getter are lost, parts that were set explicitly are kept.
+	 */
+	public void release() {
+		if (markupEntry != null) {
+			markup = null;
+			markupModified = false;
+			markupIncomplete = false;
+			modificationCount++;
+		}
+		for (String fileName : visualizationInfoEntries.keySet()) {
+			visualizationInfos.put(fileName, null);
+			modificationCount++;
+		}
+		modifiedVisualizationInfos.clear();
+		for (String fileName : snapshotEntries.keySet()) {
+			snapshots.put(fileName, null);
+		}
+	}
+
 	public UUID getUuid() {
 		return uuid;
 	}
 
-	public void write(ZipOutputStream zipOutputStream) throws IOException, BcfException {
-		ZipEntry markup = new ZipEntry(getUuid().toString() + "/markup.bcf");
-		zipOutputStream.putNextEntry(markup);
-		try {
-			MARKUP_MARSHALLER.marshal(getMarkup(), zipOutputStream);
-		} catch (JAXBException e) {
-			throw new BcfException(e);
+	/**
+	 * Writes the content of a single zip entry of this topic folder.
+	 */
+	interface PartWriter {
+		void write(OutputStream outputStream) throws BcfException, IOException;
+	}
+
+	/**
+	 * A zip entry of this topic folder. Parts that are still backed by an
+	 * unmodified entry of an opened BCF file remember that entry, so its
+	 * compressed data can be copied instead of being written again.
+	 */
+	static class Part {
+		private final String name;
+		private final PartWriter writer;
+		private final BcfArchive archive;
+		private final String sourceEntry;
+		private final boolean attachment;
+
+		Part(String name, PartWriter writer, BcfArchive archive, String sourceEntry, boolean attachment) {
+			this.name = name;
+			this.writer = writer;
+			this.archive = sourceEntry == null ? null : archive;
+			this.sourceEntry = sourceEntry;
+			this.attachment = attachment;
+		}
+
+		String getName() {
+			return name;
+		}
+
+		/**
+		 * Whether this part is binary content that can be written more than
+		 * once, as opposed to a document that is marshalled.
+		 */
+		boolean isAttachment() {
+			return attachment;
+		}
+
+		void write(OutputStream outputStream) throws BcfException, IOException {
+			writer.write(outputStream);
+		}
+
+		RawZipEntry getRawEntry() throws IOException {
+			return archive == null ? null : archive.getRawEntry(sourceEntry, name);
+		}
+
+		/**
+		 * Whether this part is stored unmodified and under its own name in the
+		 * given archive.
+		 */
+		boolean isStoredIn(BcfArchive bcfArchive) {
+			return archive == bcfArchive && name.equals(sourceEntry);
+		}
+	}
+
+	/**
+	 * The zip entries of this topic folder in the order they are written. A
+	 * markup or viewpoint counts as modified as soon as it has been resolved
+	 * through its public getter, because the returned objects can be changed
+	 * in place, resolving it through {@link #readMarkup()} or
+	 * {@link #readVisualizationInfo(String)} does not count. Calling
+	 * {@link #release()} makes untouched parts clean again. Only the parts
+	 * this topic folder has are written, no empty viewpoint is added, and a
+	 * markup that was read without its comments can only be copied.
+	 */
+	List<Part> getParts() throws BcfException {
+		List<Part> parts = new ArrayList<>();
+		String prefix = getUuid().toString() + "/";
+		String markupSource = markupModified ? null : markupEntry;
+		if (markupSource == null && markupIncomplete) {
+			throw new BcfException("The markup of topic folder " + uuid + " was read without its comments and cannot be written");
+		}
+		parts.add(new Part(prefix + "markup.bcf", outputStream -> marshal(BcfSchema.MARKUP, readMarkup(), outputStream), archive, markupSource, false));
+		for (String fileName : visualizationInfos.keySet()) {
+			parts.add(new Part(prefix + fileName, outputStream -> marshal(BcfSchema.VISUALIZATION_INFO, readVisualizationInfo(fileName), outputStream), archive, modifiedVisualizationInfos.contains(fileName) ? null : visualizationInfoEntries.get(fileName), false));
 		}
+		for (String fileName : snapshots.keySet()) {
+			parts.add(new Part(prefix + fileName, outputStream -> writeSnapshot(fileName, outputStream), archive, snapshotEntries.get(fileName), true));
+		}
+		return parts;
+	}
 
-		ZipEntry visualizationInfo = new ZipEntry(getUuid().toString() + "/viewpoint.bcfv");
-		zipOutputStream.putNextEntry(visualizationInfo);
+	/**
+	 * Points every part at the entry it has just been written to in the given
+	 * archive, after which the parts count as unmodified again.
+	 */
+	void markStored(BcfArchive bcfArchive) {
+		String prefix = getUuid().toString() + "/";
+		archive = bcfArchive;
+		markupEntry = prefix + "markup.bcf";
+		markupModified = false;
+		for (String fileName : visualizationInfos.keySet()) {
+			visualizationInfoEntries.put(fileName, prefix + fileName);
+		}
+		modifiedVisualizationInfos.clear();
+		for (String fileName : snapshots.keySet()) {
+			snapshotEntries.put(fileName, prefix + fileName);
+		}
+	}
+
+	private static void marshal(BcfSchema schema, Object document, OutputStream outputStream) throws BcfException {
 		try {
-			VISUALIZATION_INFO_MARSHALLER.marshal(getVisualizationInfo(), zipOutputStream);
+			schema.marshal(document, outputStream);
 		} catch (JAXBException e) {
 			throw new BcfException(e);
 		}
+	}
 
-		if (getDefaultSnapShot() != null) {
-			ZipEntry image = new ZipEntry(getUuid().toString() + "/snapshot.png");
-			zipOutputStream.putNextEntry(image);
-			ByteArrayInputStream bais = new ByteArrayInputStream(getDefaultSnapShot());
-			IOUtils.copy(bais, zipOutputStream);
+	public void write(ZipOutputStream zipOutputStream) throws IOException, BcfException {
+		for (Part part : getParts()) {
+			zipOutputStream.putNextEntry(new ZipEntry(part.getName()));
+			part.write(zipOutputStream);
 		}
 	}
 
@@ -133,18 +443,27 @@ public class TopicFolder {
 	}
 
 	public void setDefaultSnapShot(InputStream inputStream) throws IOException {
-		defaultSnapShot = IOUtils.toByteArray(inputStream);
+		addSnapShot(DEFAULT_SNAPSHOT, inputStream);
 	}
 
 	public void setDefaultSnapShotToDummy() {
 		setDefaultSnapShot(getDummyData());
 	}
 
-	private static byte[] getDummyData() {
+	/**
+	 * Whether the entry is an image, which is kept as a snapshot of its topic
+	 * folder.
+	 */
+	static boolean isImage(String entryName) {
+		String lowerCaseName = entryName.toLowerCase(Locale.ROOT);
+		return lowerCaseName.endsWith(".png") || lowerCaseName.endsWith(".jpg") || lowerCaseName.endsWith(".jpeg");
+	}
+
+	private static synchronized byte[] getDummyData() {
 		if (dummyData == null) {
 			try {
 				try (InputStream resourceAsStream = TopicFolder.class.getResourceAsStream("dummy.png")) {
-					dummyData = IOUtils.toByteArray(resourceAsStream);
+					dummyData = SnapshotStore.SHARED.intern(IOUtils.toByteArray(resourceAsStream));
 				}
 			} catch (IOException e) {
 				e.printStackTrace();
@@ -153,11 +472,71 @@ public class TopicFolder {
 		return dummyData;
 	}
 
+	/**
+	 * Adds a snapshot with a copy of the given array, so the caller may reuse
+	 * it afterwards.
+	 */
 	public void addSnapShot(String name, byte[] byteArray) {
-		if (snapshots == null) {
-			snapshots = new HashMap<>();
+		String fileName = toFileName(name);
+		if (byteArray == null) {
+			snapshots.remove(fileName);
+		} else {
+			try {
+				snapshots.put(fileName, attachmentStore.store(byteArray.clone()));
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+		snapshotEntries.remove(fileName);
+	}
+
+	/**
+	 * Adds a snapshot with the remaining content of the stream, which is
+	 * handed to the attachment store as it is read and not closed. The default
+	 * heap store holds the whole content in memory, a
+	 * {@link org.opensourcebim.bcf.attachment.SpillingAttachmentStore} keeps
+	 * large content out of it.
+	 */
+	public void addSnapShot(String name, InputStream inputStream) throws IOException {
+		String fileName = toFileName(name);
+		snapshots.put(fileName, attachmentStore.store(inputStream));
+		snapshotEntries.remove(fileName);
+	}
+
+	public void addSnapShot(String name, ReadableByteChannel channel) throws IOException {
+		addSnapShot(name, Channels.newInputStream(channel));
+	}
+
+	/**
+	 * Opens a snapshot for reading, or returns null when there is no snapshot
+	 * with this name. A snapshot that has not been loaded from an opened BCF
+	 * file yet is streamed from its zip entry without being kept.
+	 */
+	public InputStream openSnapshot(String name) throws IOException {
+		String fileName = toFileName(name);
+		Attachment attachment = snapshots.get(fileName);
+		if (attachment != null) {
+			return attachment.getInputStream();
+		}
+		if (snapshotEntries.containsKey(fileName)) {
+			return archive.getInputStream(snapshotEntries.get(fileName));
+		}
+		return null;
+	}
+
+	public ReadableByteChannel openSnapshotChannel(String name) throws IOException {
+		InputStream inputStream = openSnapshot(name);
+		return inputStream == null ? null : Channels.newChannel(inputStream);
+	}
+
+	/**
+	 * Copies a snapshot to the given stream and returns the number of bytes
+	 * written, or -1 when there is no snapshot with this name.
+	 */
+	public long writeSnapshot(String name, OutputStream outputStream) throws IOException {
+		try (InputStream inputStream = openSnapshot(name)) {
+			return inputStream == null ? -1 : IOUtils.copyLarge(inputStream, outputStream);
 		}
-		snapshots.put(name, byteArray);
 	}
 
 	public Header createHeader() {
@@ -172,7 +551,26 @@ public class TopicFolder {
 		return topic;
 	}
 
+	/**
+	 * Returns a copy of the snapshot, {@link #getSnapshotAttachment(String)}
+	 * reads it without copying.
+	 */
 	public byte[] getSnapshot(String name) {
-		return snapshots.get(name);
+		Attachment attachment = getSnapshotAttachment(name);
+		return attachment == null ? null : attachment.getBytes();
+	}
+
+	public Attachment getSnapshotAttachment(String name) {
+		String fileName = toFileName(name);
+		Attachment attachment = snapshots.get(fileName);
+		if (attachment == null && snapshotEntries.containsKey(fileName)) {
+			try {
+				attachment = attachmentStore.store(archive.read(snapshotEntries.get(fileName)));
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+			snapshots.put(fileName, attachment);
+		}
+		return attachment;
 	}
 }
\ No newline at end of file
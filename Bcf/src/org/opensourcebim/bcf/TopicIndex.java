@@ -0,0 +1,324 @@
+package org.opensourcebim.bcf;
+
+/******************************************************************************
+ * Copyright (C) 2009-2018  BIMserver.org
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see {@literal<http://www.gnu.org/licenses/>}.
+ *****************************************************************************/
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import javax.xml.bind.JAXBException;
+
+import org.apache.commons.io.IOUtils;
+import org.opensourcebim.bcf.markup.Markup;
+import org.opensourcebim.bcf.zip.ZipDirectory;
+
+/**
+ * A compact binary index of the topic headers of a BCF file, so topics can be
+ * listed without unmarshalling their markups. The index of a file on disk can
+ * be kept in a sidecar file in a cache directory chosen by the caller,
+ * together with a key computed from the central directory of the BCF file.
+ * When the markups of the BCF file change, the key no longer matches and the
+ * index is built again.
+ */
+public class TopicIndex {
+	public static final String SIDECAR_EXTENSION = ".index";
+	private static final int MAGIC = 0x42434649;
+	private static final int FORMAT_VERSION = 1;
+	private static final long NO_DATE = Long.MIN_VALUE;
+
+	private final byte[] key;
+	private final List<TopicSummary> topics;
+
+	private TopicIndex(byte[] key, List<TopicSummary> topics) {
+		this.key = key;
+		this.topics = Collections.unmodifiableList(topics);
+	}
+
+	public List<TopicSummary> getTopics() {
+		return topics;
+	}
+
+	/**
+	 * Builds an index of the topic folders of the given file, which is not
+	 * bound to a file on disk.
+	 */
+	public static TopicIndex build(BcfFile bcfFile) {
+		List<TopicSummary> topics = new ArrayList<>();
+		for (TopicFolder topicFolder : bcfFile.getTopicFolders()) {
+			topics.add(TopicSummary.of(topicFolder.getUuid(), topicFolder.readMarkup().getTopic()));
+		}
+		return new TopicIndex(new byte[0], topics);
+	}
+
+	/**
+	 * Builds the index of a BCF file on disk, only its markups are inflated.
+	 */
+	public static TopicIndex build(Path path) throws BcfException, IOException {
+		try (BcfArchive archive = new BcfArchive(path)) {
+			return build(archive);
+		}
+	}
+
+	private static TopicIndex build(BcfArchive archive) throws BcfException, IOException {
+		List<TopicSummary> topics = new ArrayList<>();
+		for (ZipDirectory.Entry entry : archive.getZipDirectory().getEntries()) {
+			if (isMarkup(entry.getName())) {
+				UUID uuid = UUID.fromString(entry.getName().substring(0, entry.getName().indexOf("/")));
+				try {
+					topics.add(TopicSummary.of(uuid, ((Markup) archive.unmarshal(entry.getName(), BcfSchema.MARKUP)).getTopic()));
+				} catch (JAXBException e) {
+					throw new BcfException(e);
+				}
+			}
+		}
+		return new TopicIndex(computeKey(archive.getZipDirectory()), topics);
+	}
+
+	/**
+	 * Returns the index of the given BCF file from its sidecar file in the
+	 * cache directory. When there is no sidecar file yet, or it is out of date
+	 * or unreadable, the index is built and the sidecar file is written.
+	 * Failing to write the sidecar file, for example in a read-only directory,
+	 * does not fail the listing.
+	 */
+	public static TopicIndex load(Path path, Path cacheDirectory) throws BcfException, IOException {
+		try (BcfArchive archive = new BcfArchive(path)) {
+			byte[] key = computeKey(archive.getZipDirectory());
+			try {
+				TopicIndex topicIndex = read(Files.readAllBytes(getSidecar(path, cacheDirectory)));
+				if (Arrays.equals(key, topicIndex.key)) {
+					return topicIndex;
+				}
+			} catch (NoSuchFileException e) {
+				// Not indexed yet
+			} catch (BcfException | IOException | RuntimeException e) {
+				// Unreadable or truncated index, it is replaced below
+			}
+			TopicIndex topicIndex = build(archive);
+			try {
+				topicIndex.writeSidecar(path, cacheDirectory);
+			} catch (IOException e) {
+				// The index is only a cache, it is built again next time
+			}
+			return topicIndex;
+		}
+	}
+
+	/**
+	 * The sidecar file of a BCF file in the given cache directory. Its name
+	 * includes a digest of the absolute path of the BCF file, so files with
+	 * the same name in different directories do not share a sidecar file.
+	 */
+	public static Path getSidecar(Path path, Path cacheDirectory) {
+		byte[] digest = createDigest().digest(path.toAbsolutePath().normalize().toString().getBytes(StandardCharsets.UTF_8));
+		StringBuilder name = new StringBuilder(path.getFileName().toString()).append('.');
+		for (int i = 0; i < 8; i++) {
+			name.append(String.format("%02x", digest[i]));
+		}
+		return cacheDirectory.resolve(name.append(SIDECAR_EXTENSION).toString());
+	}
+
+	/**
+	 * Writes this index as the sidecar file of the given BCF file in the cache
+	 * directory. The sidecar file is replaced atomically where the file system
+	 * supports it, so concurrent readers never see a partially written index.
+	 */
+	public void writeSidecar(Path path, Path cacheDirectory) throws IOException {
+		Path sidecar = getSidecar(path, cacheDirectory);
+		Path temp = Files.createTempFile(sidecar.toAbsolutePath().getParent(), sidecar.getFileName().toString(), ".tmp");
+		try {
+			try (OutputStream outputStream = new BufferedOutputStream(Files.newOutputStream(temp))) {
+				write(outputStream);
+			}
+			try {
+				Files.move(temp, sidecar, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			} catch (IOException e) {
+				Files.move(temp, sidecar, StandardCopyOption.REPLACE_EXISTING);
+			}
+		} finally {
+			Files.deleteIfExists(temp);
+		}
+	}
+
+	private static boolean isMarkup(String name) {
+		return name.indexOf('/') == 36 && name.endsWith(".bcf");
+	}
+
+	/**
+	 * A digest of the names, checksums and sizes of the markup entries, which
+	 * only requires the central directory to be read.
+	 */
+	private static byte[] computeKey(ZipDirectory zipDirectory) {
+		MessageDigest messageDigest = createDigest();
+		for (ZipDirectory.Entry entry : zipDirectory.getEntries()) {
+			if (isMarkup(entry.getName())) {
+				messageDigest.update(entry.getName().getBytes(StandardCharsets.UTF_8));
+				messageDigest.update(longToBytes(entry.getCrc()));
+				messageDigest.update(longToBytes(entry.getSize()));
+			}
+		}
+		return messageDigest.digest();
+	}
+
+	private static MessageDigest createDigest() {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static byte[] longToBytes(long value) {
+		byte[] bytes = new byte[8];
+		for (int i = 0; i < 8; i++) {
+			bytes[i] = (byte) (value >>> (56 - i * 8));
+		}
+		return bytes;
+	}
+
+	/**
+	 * Writes the index. Strings are written once to a string table and
+	 * referenced by their position in it, as statuses, types, priorities,
+	 * assignees and labels repeat across topics.
+	 */
+	public void write(OutputStream outputStream) throws IOException {
+		List<String> strings = new ArrayList<>();
+		Map<String, Integer> stringIndexes = new HashMap<>();
+		for (TopicSummary topic : topics) {
+			for (String string : getStrings(topic)) {
+				if (string != null && !stringIndexes.containsKey(string)) {
+					stringIndexes.put(string, strings.size());
+					strings.add(string);
+				}
+			}
+		}
+		DataOutputStream dataOutputStream = new DataOutputStream(outputStream);
+		dataOutputStream.writeInt(MAGIC);
+		dataOutputStream.writeInt(FORMAT_VERSION);
+		dataOutputStream.writeInt(key.length);
+		dataOutputStream.write(key);
+		dataOutputStream.writeInt(strings.size());
+		for (String string : strings) {
+			byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+			dataOutputStream.writeInt(bytes.length);
+			dataOutputStream.write(bytes);
+		}
+		dataOutputStream.writeInt(topics.size());
+		for (TopicSummary topic : topics) {
+			dataOutputStream.writeLong(topic.getTopicFolderUuid().getMostSignificantBits());
+			dataOutputStream.writeLong(topic.getTopicFolderUuid().getLeastSignificantBits());
+			List<String> topicStrings = getStrings(topic);
+			dataOutputStream.writeInt(topicStrings.size());
+			for (String string : topicStrings) {
+				dataOutputStream.writeInt(string == null ? -1 : stringIndexes.get(string));
+			}
+			dataOutputStream.writeLong(topic.getCreationDate() == null ? NO_DATE : topic.getCreationDate());
+			dataOutputStream.writeLong(topic.getModifiedDate() == null ? NO_DATE : topic.getModifiedDate());
+			dataOutputStream.writeLong(topic.getDueDate() == null ? NO_DATE : topic.getDueDate());
+		}
+		dataOutputStream.flush();
+	}
+
+	/**
+	 * The strings of a topic in the order they are written, the labels come
+	 * last.
+	 */
+	private static List<String> getStrings(TopicSummary topic) {
+		List<String> strings = new ArrayList<>(Arrays.asList(topic.getGuid(), topic.getTitle(), topic.getTopicStatus(), topic.getTopicType(), topic.getPriority(), topic.getAssignedTo()));
+		strings.addAll(topic.getLabels());
+		return strings;
+	}
+
+	public static TopicIndex read(InputStream inputStream) throws BcfException, IOException {
+		return read(IOUtils.toByteArray(inputStream));
+	}
+
+	/**
+	 * Reads an index, every length in it is checked against the bytes that
+	 * are left, so a damaged index cannot make it allocate more than that.
+	 */
+	private static TopicIndex read(byte[] data) throws BcfException, IOException {
+		ByteArrayInputStream byteArrayInputStream = new ByteArrayInputStream(data);
+		DataInputStream dataInputStream = new DataInputStream(byteArrayInputStream);
+		if (dataInputStream.readInt() != MAGIC || dataInputStream.readInt() != FORMAT_VERSION) {
+			throw new BcfException("Not a topic index");
+		}
+		byte[] key = new byte[readLength(dataInputStream, byteArrayInputStream, 1)];
+		dataInputStream.readFully(key);
+		String[] strings = new String[readLength(dataInputStream, byteArrayInputStream, 4)];
+		for (int i = 0; i < strings.length; i++) {
+			byte[] bytes = new byte[readLength(dataInputStream, byteArrayInputStream, 1)];
+			dataInputStream.readFully(bytes);
+			strings[i] = new String(bytes, StandardCharsets.UTF_8);
+		}
+		int count = readLength(dataInputStream, byteArrayInputStream, 44);
+		List<TopicSummary> topics = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			UUID uuid = new UUID(dataInputStream.readLong(), dataInputStream.readLong());
+			String[] topicStrings = new String[readLength(dataInputStream, byteArrayInputStream, 4)];
+			if (topicStrings.length < 6) {
+				throw new BcfException("Topic index is damaged, a topic has " + topicStrings.length + " strings");
+			}
+			for (int j = 0; j < topicStrings.length; j++) {
+				int index = dataInputStream.readInt();
+				if (index < -1 || index >= strings.length) {
+					throw new BcfException("Topic index is damaged, there is no string " + index);
+				}
+				topicStrings[j] = index == -1 ? null : strings[index];
+			}
+			List<String> labels = Arrays.asList(topicStrings).subList(6, topicStrings.length);
+			topics.add(new TopicSummary(uuid, topicStrings[0], topicStrings[1], topicStrings[2], topicStrings[3], topicStrings[4], topicStrings[5], labels, readDate(dataInputStream), readDate(dataInputStream), readDate(dataInputStream)));
+		}
+		return new TopicIndex(key, topics);
+	}
+
+	/**
+	 * Reads the number of elements that follow, each taking at least the given
+	 * number of bytes.
+	 */
+	private static int readLength(DataInputStream dataInputStream, ByteArrayInputStream remaining, int elementSize) throws IOException, BcfException {
+		int length = dataInputStream.readInt();
+		if (length < 0 || (long) length * elementSize > remaining.available()) {
+			throw new BcfException("Topic index is damaged, " + length + " elements do not fit in the " + remaining.available() + " remaining bytes");
+		}
+		return length;
+	}
+
+	private static Long readDate(DataInputStream dataInputStream) throws IOException {
+		long date = dataInputStream.readLong();
+		return date == NO_DATE ? null : date;
+	}
+}
@@ -0,0 +1,128 @@
+package org.opensourcebim.bcf;
+
+/******************************************************************************
+ * Copyright (C) 2009-2018  BIMserver.org
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see {@literal<http://www.gnu.org/licenses/>}.
+ *****************************************************************************/
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+import org.opensourcebim.bcf.TopicQueryEngine.Field;
+import org.opensourcebim.bcf.markup.Topic;
+
+/**
+ * Selects topic folders of a {@link BcfFile}, created by
+ * {@link BcfFile#query()}. Conditions on the status, assignee, priority,
+ * labels and due date are answered from indexes, other conditions are
+ * evaluated on the topics that remain. Several values for the same field
+ * match any of them, different conditions must all match.
+ */
+public class TopicQuery {
+	private final TopicQueryEngine engine;
+	private final Map<Field, Collection<String>> conditions = new EnumMap<>(Field.class);
+	private Long dueFrom;
+	private Long dueTo;
+	private Predicate<Topic> predicate;
+	private Comparator<Topic> comparator;
+	private int offset;
+	private int limit = Integer.MAX_VALUE;
+
+	TopicQuery(TopicQueryEngine engine) {
+		this.engine = engine;
+	}
+
+	public TopicQuery topicStatus(String... topicStatuses) {
+		return where(Field.STATUS, topicStatuses);
+	}
+
+	public TopicQuery assignedTo(String... assignees) {
+		return where(Field.ASSIGNED_TO, assignees);
+	}
+
+	public TopicQuery priority(String... priorities) {
+		return where(Field.PRIORITY, priorities);
+	}
+
+	public TopicQuery label(String... labels) {
+		return where(Field.LABEL, labels);
+	}
+
+	private TopicQuery where(Field field, String[] values) {
+		conditions.put(field, Arrays.asList(values));
+		return this;
+	}
+
+	/**
+	 * Only topics due within the given range, in milliseconds since the epoch.
+	 * Either bound may be null, both are inclusive.
+	 */
+	public TopicQuery dueBetween(Long from, Long to) {
+		this.dueFrom = from;
+		this.dueTo = to;
+		return this;
+	}
+
+	public TopicQuery filter(Predicate<Topic> predicate) {
+		this.predicate = this.predicate == null ? predicate : this.predicate.and(predicate);
+		return this;
+	}
+
+	public TopicQuery sortBy(Comparator<Topic> comparator) {
+		this.comparator = comparator;
+		return this;
+	}
+
+	public TopicQuery page(int offset, int limit) {
+		this.offset = offset;
+		this.limit = limit;
+		return this;
+	}
+
+	/**
+	 * All matching topic folders, in file order unless a sort order was given.
+	 */
+	public List<TopicFolder> list() {
+		List<TopicFolder> result = select();
+		if (comparator != null) {
+			result.sort(Comparator.comparing(topicFolder -> topicFolder.readMarkup().getTopic(), Comparator.nullsLast(comparator)));
+		}
+		if (offset >= result.size()) {
+			return new ArrayList<>();
+		}
+		return new ArrayList<>(result.subList(offset, (int) Math.min(result.size(), (long) offset + limit)));
+	}
+
+	/**
+	 * The number of matching topic folders, ignoring the page.
+	 */
+	public int count() {
+		return select().size();
+	}
+
+	private List<TopicFolder> select() {
+		List<TopicFolder> selection = engine.select(conditions, dueFrom, dueTo);
+		if (predicate != null) {
+			selection.removeIf(topicFolder -> topicFolder.readMarkup().getTopic() == null || !predicate.test(topicFolder.readMarkup().getTopic()));
+		}
+		return selection;
+	}
+}
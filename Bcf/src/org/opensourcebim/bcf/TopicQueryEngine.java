@@ -0,0 +1,167 @@
+package org.opensourcebim.bcf;
+
+/******************************************************************************
+ * Copyright (C) 2009-2018  BIMserver.org
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see {@literal<http://www.gnu.org/licenses/>}.
+ *****************************************************************************/
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import org.opensourcebim.bcf.markup.Topic;
+import org.opensourcebim.bcf.utils.IsoDateTime;
+
+/**
+ * Secondary indexes over the topics of a {@link BcfFile}. Topic folders are
+ * numbered in file order and every index maps a value to the set of topic
+ * folders having it, so conditions can be combined by intersecting bit sets.
+ * An index is built on its first use and all of them are dropped when a topic
+ * folder is added or its markup is replaced.
+ */
+class TopicQueryEngine {
+	enum Field {
+		STATUS(topic -> Collections.singletonList(topic.getTopicStatus())),
+		ASSIGNED_TO(topic -> Collections.singletonList(topic.getAssignedTo())),
+		PRIORITY(topic -> Collections.singletonList(topic.getPriority())),
+		LABEL(Topic::getLabels);
+
+		private final Function<Topic, Collection<String>> values;
+
+		Field(Function<Topic, Collection<String>> values) {
+			this.values = values;
+		}
+	}
+
+	private final BcfFile bcfFile;
+	private long stamp = -1;
+	private List<TopicFolder> topicFolders;
+	private final Map<Field, Map<String, BitSet>> indexes = new EnumMap<>(Field.class);
+	private long[] dueDates;
+	private int[] dueDatePositions;
+
+	TopicQueryEngine(BcfFile bcfFile) {
+		this.bcfFile = bcfFile;
+	}
+
+	synchronized void invalidate() {
+		stamp = -1;
+	}
+
+	/**
+	 * Makes sure the indexes reflect the current topic folders, must be called
+	 * with the lock held before any other method.
+	 */
+	private void validate() {
+		long currentStamp = bcfFile.getModificationStamp();
+		if (currentStamp != stamp) {
+			topicFolders = new ArrayList<>(bcfFile.getTopicFolders());
+			indexes.clear();
+			dueDates = null;
+			dueDatePositions = null;
+			stamp = currentStamp;
+		}
+	}
+
+	synchronized List<TopicFolder> select(Map<Field, Collection<String>> conditions, Long dueFrom, Long dueTo) {
+		validate();
+		BitSet selection = new BitSet(topicFolders.size());
+		selection.set(0, topicFolders.size());
+		for (Map.Entry<Field, Collection<String>> condition : conditions.entrySet()) {
+			Map<String, BitSet> index = getIndex(condition.getKey());
+			BitSet matches = new BitSet(topicFolders.size());
+			for (String value : condition.getValue()) {
+				BitSet bitSet = index.get(value);
+				if (bitSet != null) {
+					matches.or(bitSet);
+				}
+			}
+			selection.and(matches);
+		}
+		if (dueFrom != null || dueTo != null) {
+			selection.and(selectDueDates(dueFrom == null ? Long.MIN_VALUE : dueFrom, dueTo == null ? Long.MAX_VALUE : dueTo));
+		}
+		List<TopicFolder> result = new ArrayList<>(selection.cardinality());
+		for (int i = selection.nextSetBit(0); i >= 0; i = selection.nextSetBit(i + 1)) {
+			result.add(topicFolders.get(i));
+		}
+		return result;
+	}
+
+	private Map<String, BitSet> getIndex(Field field) {
+		Map<String, BitSet> index = indexes.get(field);
+		if (index == null) {
+			index = new HashMap<>();
+			for (int i = 0; i < topicFolders.size(); i++) {
+				Topic topic = topicFolders.get(i).readMarkup().getTopic();
+				if (topic != null) {
+					for (String value : field.values.apply(topic)) {
+						if (value != null) {
+							index.computeIfAbsent(value, key -> new BitSet()).set(i);
+						}
+					}
+				}
+			}
+			indexes.put(field, index);
+		}
+		return index;
+	}
+
+	/**
+	 * Topic folders with a due date in the given inclusive range, found by a
+	 * binary search in the due dates sorted once.
+	 */
+	private BitSet selectDueDates(long from, long to) {
+		if (dueDates == null) {
+			List<long[]> pairs = new ArrayList<>();
+			for (int i = 0; i < topicFolders.size(); i++) {
+				Topic topic = topicFolders.get(i).readMarkup().getTopic();
+				if (topic != null && topic.getDueDate() != null) {
+					pairs.add(new long[] { IsoDateTime.toEpochMilli(topic.getDueDate()), i });
+				}
+			}
+			pairs.sort((a, b) -> Long.compare(a[0], b[0]));
+			dueDates = new long[pairs.size()];
+			dueDatePositions = new int[pairs.size()];
+			for (int i = 0; i < pairs.size(); i++) {
+				dueDates[i] = pairs.get(i)[0];
+				dueDatePositions[i] = (int) pairs.get(i)[1];
+			}
+		}
+		BitSet matches = new BitSet(topicFolders.size());
+		for (int i = lowerBound(from); i < dueDates.length && dueDates[i] <= to; i++) {
+			matches.set(dueDatePositions[i]);
+		}
+		return matches;
+	}
+
+	private int lowerBound(long value) {
+		int index = Arrays.binarySearch(dueDates, value);
+		if (index < 0) {
+			return -index - 1;
+		}
+		while (index > 0 && dueDates[index - 1] == value) {
+			index--;
+		}
+		return index;
+	}
+}
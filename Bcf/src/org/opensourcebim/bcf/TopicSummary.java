@@ -0,0 +1,119 @@
+package org.opensourcebim.bcf;
+
+/******************************************************************************
+ * Copyright (C) 2009-2018  BIMserver.org
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see {@literal<http://www.gnu.org/licenses/>}.
+ *****************************************************************************/
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+import org.opensourcebim.bcf.markup.Topic;
+import org.opensourcebim.bcf.utils.IsoDateTime;
+
+/**
+ * The header fields of a topic, as kept by a {@link TopicIndex}. Dates are in
+ * milliseconds since the epoch, like in the JSON export.
+ */
+public class TopicSummary {
+	private final UUID topicFolderUuid;
+	private final String guid;
+	private final String title;
+	private final String topicStatus;
+	private final String topicType;
+	private final String priority;
+	private final String assignedTo;
+	private final List<String> labels;
+	private final Long creationDate;
+	private final Long modifiedDate;
+	private final Long dueDate;
+
+	TopicSummary(UUID topicFolderUuid, String guid, String title, String topicStatus, String topicType, String priority, String assignedTo, List<String> labels, Long creationDate, Long modifiedDate, Long dueDate) {
+		this.topicFolderUuid = topicFolderUuid;
+		this.guid = guid;
+		this.title = title;
+		this.topicStatus = topicStatus;
+		this.topicType = topicType;
+		this.priority = priority;
+		this.assignedTo = assignedTo;
+		this.labels = Collections.unmodifiableList(labels);
+		this.creationDate = creationDate;
+		this.modifiedDate = modifiedDate;
+		this.dueDate = dueDate;
+	}
+
+	static TopicSummary of(UUID topicFolderUuid, Topic topic) {
+		if (topic == null) {
+			return new TopicSummary(topicFolderUuid, null, null, null, null, null, null, Collections.<String>emptyList(), null, null, null);
+		}
+		return new TopicSummary(topicFolderUuid, topic.getGuid(), topic.getTitle(), topic.getTopicStatus(), topic.getTopicType(), topic.getPriority(), topic.getAssignedTo(), new ArrayList<>(topic.getLabels()), toMillis(topic.getCreationDate()), toMillis(topic.getModifiedDate()), toMillis(topic.getDueDate()));
+	}
+
+	private static Long toMillis(OffsetDateTime date) {
+		return date == null ? null : IsoDateTime.toEpochMilli(date);
+	}
+
+	public UUID getTopicFolderUuid() {
+		return topicFolderUuid;
+	}
+
+	public String getGuid() {
+		return guid;
+	}
+
+	public String getTitle() {
+		return title;
+	}
+
+	public String getTopicStatus() {
+		return topicStatus;
+	}
+
+	public String getTopicType() {
+		return topicType;
+	}
+
+	public String getPriority() {
+		return priority;
+	}
+
+	public String getAssignedTo() {
+		return assignedTo;
+	}
+
+	public List<String> getLabels() {
+		return labels;
+	}
+
+	public Long getCreationDate() {
+		return creationDate;
+	}
+
+	public Long getModifiedDate() {
+		return modifiedDate;
+	}
+
+	public Long getDueDate() {
+		return dueDate;
+	}
+
+	@Override
+	public String toString() {
+		return topicFolderUuid + " " + title;
+	}
+}
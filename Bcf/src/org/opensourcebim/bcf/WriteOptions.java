@@ -0,0 +1,86 @@
+package org.opensourcebim.bcf;
+
+/******************************************************************************
+ * Copyright (C) 2009-2018  BIMserver.org
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see {@literal<http://www.gnu.org/licenses/>}.
+ *****************************************************************************/
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.zip.Deflater;
+
+public class WriteOptions extends Options {
+	/**
+	 * The options used when none are given, which cannot be changed.
+	 */
+	public static final WriteOptions DEFAULT = readOnly(new WriteOptions());
+	private Executor executor;
+	private int maxPendingTopics = 64;
+	private int compressionLevel = Deflater.DEFAULT_COMPRESSION;
+	private Set<String> storedExtensions = new HashSet<>(Arrays.asList("png", "jpg", "jpeg"));
+
+	public Executor getExecutor() {
+		return executor;
+	}
+
+	/**
+	 * When set, the entries of each topic folder are marshalled and deflated on
+	 * this executor, while the results are written to the file in order.
+	 */
+	public void setExecutor(Executor executor) {
+		checkMutable();
+		this.executor = executor;
+	}
+
+	public int getMaxPendingTopics() {
+		return maxPendingTopics;
+	}
+
+	/**
+	 * The number of topic folders that may be prepared ahead of the one being
+	 * written, which bounds the memory used by a parallel write.
+	 */
+	public void setMaxPendingTopics(int maxPendingTopics) {
+		checkMutable();
+		this.maxPendingTopics = maxPendingTopics;
+	}
+
+	public int getCompressionLevel() {
+		return compressionLevel;
+	}
+
+	public void setCompressionLevel(int compressionLevel) {
+		checkMutable();
+		this.compressionLevel = compressionLevel;
+	}
+
+	/**
+	 * Extensions of entries that are already compressed and are therefore
+	 * STORED instead of DEFLATED, by default png, jpg and jpeg. The set can be
+	 * changed, except on {@link #DEFAULT}.
+	 */
+	public Set<String> getStoredExtensions() {
+		return isReadOnly() ? Collections.unmodifiableSet(storedExtensions) : storedExtensions;
+	}
+
+	public boolean isStored(String entryName) {
+		int index = entryName.lastIndexOf('.');
+		return index != -1 && storedExtensions.contains(entryName.substring(index + 1).toLowerCase(Locale.ROOT));
+	}
+}
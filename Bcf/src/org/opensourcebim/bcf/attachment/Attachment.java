@@ -0,0 +1,72 @@
+package org.opensourcebim.bcf.attachment;
+
+/******************************************************************************
+ * Copyright (C) 2009-2018  BIMserver.org
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see {@literal<http://www.gnu.org/licenses/>}.
+ *****************************************************************************/
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+import org.opensourcebim.bcf.utils.ByteBufferInputStream;
+
+/**
+ * Binary content of a topic folder, such as a snapshot or bitmap image. The
+ * content is held in a heap, direct or memory mapped buffer, depending on the
+ * {@link AttachmentStore} that created it.
+ */
+public class Attachment {
+	private final ByteBuffer buffer;
+	private final byte[] data;
+
+	public Attachment(byte[] data) {
+		this.buffer = ByteBuffer.wrap(data).asReadOnlyBuffer();
+		this.data = data;
+	}
+
+	public Attachment(ByteBuffer buffer) {
+		this.buffer = buffer.asReadOnlyBuffer();
+		this.data = null;
+	}
+
+	public int getSize() {
+		return buffer.remaining();
+	}
+
+	public boolean isOnHeap() {
+		return data != null;
+	}
+
+	/**
+	 * A copy of the content. The array of an attachment on the heap may be
+	 * shared with other topic folders and files, so it is never handed out.
+	 */
+	public byte[] getBytes() {
+		byte[] copy = new byte[buffer.remaining()];
+		buffer.duplicate().get(copy);
+		return copy;
+	}
+
+	/**
+	 * A read-only view of the content that does not copy it.
+	 */
+	public ByteBuffer getByteBuffer() {
+		return buffer.duplicate();
+	}
+
+	public InputStream getInputStream() {
+		return new ByteBufferInputStream(getByteBuffer());
+	}
+}
@@ -0,0 +1,43 @@
+package org.opensourcebim.bcf.attachment;
+
+/******************************************************************************
+ * Copyright (C) 2009-2018  BIMserver.org
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see {@literal<http://www.gnu.org/licenses/>}.
+ *****************************************************************************/
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.apache.commons.io.IOUtils;
+
+/**
+ * Decides where the binary content of topic folders is held.
+ */
+public interface AttachmentStore {
+	AttachmentStore HEAP = new HeapAttachmentStore();
+
+	/**
+	 * Stores the given array, which is owned by the store afterwards and must
+	 * not be modified anymore.
+	 */
+	Attachment store(byte[] data) throws IOException;
+
+	/**
+	 * Stores the remaining content of the stream, which is not closed.
+	 */
+	default Attachment store(InputStream inputStream) throws IOException {
+		return store(IOUtils.toByteArray(inputStream));
+	}
+}
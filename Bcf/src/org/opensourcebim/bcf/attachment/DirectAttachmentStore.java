@@ -0,0 +1,35 @@
+package org.opensourcebim.bcf.attachment;
+
+/******************************************************************************
+ * Copyright (C) 2009-2018  BIMserver.org
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see {@literal<http://www.gnu.org/licenses/>}.
+ *****************************************************************************/
+
+import java.nio.ByteBuffer;
+
+/**
+ * Keeps attachments in direct buffers outside of the Java heap. Their memory is
+ * released when the attachments are garbage collected, it is limited by
+ * -XX:MaxDirectMemorySize.
+ */
+public class DirectAttachmentStore implements AttachmentStore {
+	@Override
+	public Attachment store(byte[] data) {
+		ByteBuffer buffer = ByteBuffer.allocateDirect(data.length);
+		buffer.put(data);
+		buffer.flip();
+		return new Attachment(buffer);
+	}
+}
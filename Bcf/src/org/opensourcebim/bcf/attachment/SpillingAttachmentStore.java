@@ -0,0 +1,133 @@
+package org.opensourcebim.bcf.attachment;
+
+/******************************************************************************
+ * Copyright (C) 2009-2018  BIMserver.org
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see {@literal<http://www.gnu.org/licenses/>}.
+ *****************************************************************************/
+
+import java.io.Closeable;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.apache.commons.io.IOUtils;
+import org.opensourcebim.bcf.utils.FakeClosingInputStream;
+
+/**
+ * Keeps attachments in another store until a memory budget has been used up,
+ * later attachments are appended to a temporary file and memory mapped. The
+ * budget counts every attachment kept in memory by this store, also after it
+ * has been dropped again.
+ * 
+ * Closing the store deletes the temporary file, mapped attachments must not be
+ * used after that.
+ */
+public class SpillingAttachmentStore implements AttachmentStore, Closeable {
+	private final AttachmentStore memoryStore;
+	private final long memoryBudget;
+	private final Path directory;
+	private long memoryUsed;
+	private Path spillFile;
+	private FileChannel spillChannel;
+
+	public SpillingAttachmentStore(long memoryBudget) {
+		this(AttachmentStore.HEAP, memoryBudget, null);
+	}
+
+	/**
+	 * @param directory where the temporary file is created, null for the
+	 *            default temporary directory
+	 */
+	public SpillingAttachmentStore(AttachmentStore memoryStore, long memoryBudget, Path directory) {
+		this.memoryStore = memoryStore;
+		this.memoryBudget = memoryBudget;
+		this.directory = directory;
+	}
+
+	@Override
+	public Attachment store(byte[] data) throws IOException {
+		synchronized (this) {
+			if (memoryUsed + data.length > memoryBudget) {
+				return spill(new ByteArrayInputStream(data));
+			}
+			memoryUsed += data.length;
+		}
+		return memoryStore.store(data);
+	}
+
+	/**
+	 * Only as much of the stream as still fits in the memory budget is
+	 * buffered, larger content is copied to the temporary file as it is read.
+	 */
+	@Override
+	public Attachment store(InputStream inputStream) throws IOException {
+		long available;
+		synchronized (this) {
+			available = memoryBudget - memoryUsed;
+		}
+		ByteArrayOutputStream head = new ByteArrayOutputStream();
+		if (available >= 0) {
+			IOUtils.copyLarge(inputStream, head, 0, available + 1);
+		}
+		if (head.size() <= available) {
+			return store(head.toByteArray());
+		}
+		synchronized (this) {
+			return spill(new SequenceInputStream(new ByteArrayInputStream(head.toByteArray()), new FakeClosingInputStream(inputStream)));
+		}
+	}
+
+	private Attachment spill(InputStream inputStream) throws IOException {
+		if (spillChannel == null) {
+			spillFile = directory == null ? Files.createTempFile("bcf", ".attachments") : Files.createTempFile(directory, "bcf", ".attachments");
+			spillChannel = FileChannel.open(spillFile, StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.DELETE_ON_CLOSE);
+		}
+		long start = spillChannel.size();
+		long position = start;
+		byte[] buffer = new byte[65536];
+		for (int read = inputStream.read(buffer); read != -1; read = inputStream.read(buffer)) {
+			ByteBuffer byteBuffer = ByteBuffer.wrap(buffer, 0, read);
+			while (byteBuffer.hasRemaining()) {
+				position += spillChannel.write(byteBuffer, position);
+			}
+		}
+		return new Attachment(spillChannel.map(MapMode.READ_ONLY, start, position - start));
+	}
+
+	public synchronized long getMemoryUsed() {
+		return memoryUsed;
+	}
+
+	public synchronized long getSpilled() throws IOException {
+		return spillChannel == null ? 0 : spillChannel.size();
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		if (spillChannel != null) {
+			spillChannel.close();
+			spillChannel = null;
+			Files.deleteIfExists(spillFile);
+		}
+	}
+}
@@ -0,0 +1,58 @@
+package org.opensourcebim.bcf.utils;
+
+/******************************************************************************
+ * Copyright (C) 2009-2018  BIMserver.org
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see {@literal<http://www.gnu.org/licenses/>}.
+ *****************************************************************************/
+
+import javax.xml.stream.StreamFilter;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Removes every element with the given name at the given depth, the root
+ * element being at depth 1, including everything inside it. A filter keeps
+ * track of the depth, so it can only be used for a single document.
+ */
+public class ElementSkippingFilter implements StreamFilter {
+
+	private final String localName;
+	private final int level;
+	private int depth;
+	private boolean skipping;
+
+	public ElementSkippingFilter(String localName, int level) {
+		this.localName = localName;
+		this.level = level;
+	}
+
+	@Override
+	public boolean accept(XMLStreamReader reader) {
+		if (reader.isStartElement()) {
+			depth++;
+			if (!skipping && depth == level && reader.getLocalName().equals(localName)) {
+				skipping = true;
+			}
+			return !skipping;
+		} else if (reader.isEndElement()) {
+			boolean accepted = !skipping;
+			if (skipping && depth == level) {
+				skipping = false;
+			}
+			depth--;
+			return accepted;
+		}
+		return !skipping;
+	}
+}
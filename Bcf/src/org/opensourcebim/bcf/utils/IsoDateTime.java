@@ -0,0 +1,217 @@
+package org.opensourcebim.bcf.utils;
+
+/******************************************************************************
+ * Copyright (C) 2009-2018  BIMserver.org
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see {@literal<http://www.gnu.org/licenses/>}.
+ *****************************************************************************/
+
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+
+/**
+ * Parses and formats xs:dateTime values without going through a
+ * DateTimeFormatter or a calendar. Values without a time zone are taken to be
+ * in the default time zone of the JVM, as XMLGregorianCalendar did, and are
+ * written back with that offset. Offsets written without a colon as some
+ * tools do are accepted.
+ */
+public final class IsoDateTime {
+	private IsoDateTime() {
+	}
+
+	public static OffsetDateTime parse(CharSequence text) {
+		int start = 0;
+		int end = text.length();
+		while (start < end && Character.isWhitespace(text.charAt(start))) {
+			start++;
+		}
+		while (end > start && Character.isWhitespace(text.charAt(end - 1))) {
+			end--;
+		}
+		try {
+			int pos = start;
+			boolean negativeYear = pos < end && text.charAt(pos) == '-';
+			if (negativeYear) {
+				pos++;
+			}
+			int yearStart = pos;
+			while (pos < end && isDigit(text.charAt(pos))) {
+				pos++;
+			}
+			if (pos - yearStart < 4 || pos - yearStart > 9) {
+				throw invalid(text);
+			}
+			int year = digits(text, yearStart, pos);
+			if (negativeYear) {
+				year = -year;
+			}
+			pos = expect(text, pos, end, '-');
+			int month = digits(text, pos, pos += 2, end);
+			pos = expect(text, pos, end, '-');
+			int day = digits(text, pos, pos += 2, end);
+			pos = expect(text, pos, end, 'T');
+			int hour = digits(text, pos, pos += 2, end);
+			pos = expect(text, pos, end, ':');
+			int minute = digits(text, pos, pos += 2, end);
+			pos = expect(text, pos, end, ':');
+			int second = digits(text, pos, pos += 2, end);
+			int nano = 0;
+			if (pos < end && text.charAt(pos) == '.') {
+				pos++;
+				int fractionStart = pos;
+				int scale = 100000000;
+				while (pos < end && isDigit(text.charAt(pos))) {
+					nano += (text.charAt(pos) - '0') * scale;
+					scale /= 10;
+					pos++;
+				}
+				if (pos == fractionStart) {
+					throw invalid(text);
+				}
+			}
+			ZoneOffset offset = null;
+			if (pos < end) {
+				char sign = text.charAt(pos++);
+				if (sign == '+' || sign == '-') {
+					int offsetHours = digits(text, pos, pos += 2, end);
+					int offsetMinutes = 0;
+					if (pos < end) {
+						if (text.charAt(pos) == ':') {
+							pos++;
+						}
+						offsetMinutes = digits(text, pos, pos += 2, end);
+					}
+					offset = sign == '+' ? ZoneOffset.ofHoursMinutes(offsetHours, offsetMinutes) : ZoneOffset.ofHoursMinutes(-offsetHours, -offsetMinutes);
+				} else if (sign == 'Z') {
+					offset = ZoneOffset.UTC;
+				} else {
+					throw invalid(text);
+				}
+			}
+			if (pos != end) {
+				throw invalid(text);
+			}
+			LocalDateTime dateTime;
+			if (hour == 24 && minute == 0 && second == 0 && nano == 0) {
+				dateTime = LocalDateTime.of(year, month, day, 0, 0).plusDays(1);
+			} else {
+				dateTime = LocalDateTime.of(year, month, day, hour, minute, second, nano);
+			}
+			if (offset == null) {
+				return ZonedDateTime.of(dateTime, ZoneId.systemDefault()).toOffsetDateTime();
+			}
+			return OffsetDateTime.of(dateTime, offset);
+		} catch (DateTimeException e) {
+			throw new IllegalArgumentException("Invalid dateTime " + text, e);
+		}
+	}
+
+	public static String format(OffsetDateTime dateTime) {
+		StringBuilder sb = new StringBuilder(35);
+		int year = dateTime.getYear();
+		if (year < 0) {
+			sb.append('-');
+			year = -year;
+		}
+		pad(sb, year, 4);
+		sb.append('-');
+		pad(sb, dateTime.getMonthValue(), 2);
+		sb.append('-');
+		pad(sb, dateTime.getDayOfMonth(), 2);
+		sb.append('T');
+		pad(sb, dateTime.getHour(), 2);
+		sb.append(':');
+		pad(sb, dateTime.getMinute(), 2);
+		sb.append(':');
+		pad(sb, dateTime.getSecond(), 2);
+		int nano = dateTime.getNano();
+		if (nano != 0) {
+			int digits = 9;
+			while (nano % 10 == 0) {
+				nano /= 10;
+				digits--;
+			}
+			sb.append('.');
+			pad(sb, nano, digits);
+		}
+		int offsetSeconds = dateTime.getOffset().getTotalSeconds();
+		if (offsetSeconds == 0) {
+			sb.append('Z');
+		} else {
+			sb.append(offsetSeconds < 0 ? '-' : '+');
+			int offsetMinutes = Math.abs(offsetSeconds) / 60;
+			pad(sb, offsetMinutes / 60, 2);
+			sb.append(':');
+			pad(sb, offsetMinutes % 60, 2);
+		}
+		return sb.toString();
+	}
+
+	public static long toEpochMilli(OffsetDateTime dateTime) {
+		return dateTime.toEpochSecond() * 1000 + dateTime.getNano() / 1000000;
+	}
+
+	public static OffsetDateTime ofEpochMilli(long epochMilli) {
+		return OffsetDateTime.ofInstant(Instant.ofEpochMilli(epochMilli), ZoneOffset.UTC);
+	}
+
+	private static void pad(StringBuilder sb, int value, int width) {
+		for (int limit = 10, i = 1; i < width; i++, limit *= 10) {
+			if (value < limit) {
+				sb.append('0');
+			}
+		}
+		sb.append(value);
+	}
+
+	private static boolean isDigit(char c) {
+		return c >= '0' && c <= '9';
+	}
+
+	private static int expect(CharSequence text, int pos, int end, char c) {
+		if (pos >= end || text.charAt(pos) != c) {
+			throw invalid(text);
+		}
+		return pos + 1;
+	}
+
+	private static int digits(CharSequence text, int start, int end, int limit) {
+		if (end > limit) {
+			throw invalid(text);
+		}
+		return digits(text, start, end);
+	}
+
+	private static int digits(CharSequence text, int start, int end) {
+		int value = 0;
+		for (int i = start; i < end; i++) {
+			char c = text.charAt(i);
+			if (!isDigit(c)) {
+				throw invalid(text);
+			}
+			value = value * 10 + c - '0';
+		}
+		return value;
+	}
+
+	private static IllegalArgumentException invalid(CharSequence text) {
+		return new IllegalArgumentException("Invalid dateTime " + text);
+	}
+}
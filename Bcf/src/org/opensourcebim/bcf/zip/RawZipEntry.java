@@ -0,0 +1,120 @@
+package org.opensourcebim.bcf.zip;
+
+/******************************************************************************
+ * Copyright (C) 2009-2018  BIMserver.org
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see {@literal<http://www.gnu.org/licenses/>}.
+ *****************************************************************************/
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+
+/**
+ * A zip entry of which the (compressed) data is known up front, so it can be
+ * written by a {@link ZipWriter} without compressing it again.
+ */
+public class RawZipEntry {
+	private final String name;
+	private final int method;
+	private final long crc;
+	private final long size;
+	private final long compressedSize;
+	private final byte[] data;
+	private long time = -1;
+
+	public RawZipEntry(String name, int method, long crc, long size, byte[] data) {
+		this.name = name;
+		this.method = method;
+		this.crc = crc;
+		this.size = size;
+		this.compressedSize = data.length;
+		this.data = data;
+	}
+
+	protected RawZipEntry(String name, int method, long crc, long size, long compressedSize) {
+		this.name = name;
+		this.method = method;
+		this.crc = crc;
+		this.size = size;
+		this.compressedSize = compressedSize;
+		this.data = null;
+	}
+
+	public static RawZipEntry stored(String name, byte[] data) {
+		return new RawZipEntry(name, ZipEntry.STORED, crc(data), data.length, data);
+	}
+
+	public static RawZipEntry deflated(String name, byte[] data, int level) {
+		Deflater deflater = new Deflater(level, true);
+		try {
+			deflater.setInput(data);
+			deflater.finish();
+			ByteArrayOutputStream outputStream = new ByteArrayOutputStream(Math.max(64, data.length / 2));
+			byte[] buffer = new byte[8192];
+			while (!deflater.finished()) {
+				int length = deflater.deflate(buffer);
+				outputStream.write(buffer, 0, length);
+			}
+			return new RawZipEntry(name, ZipEntry.DEFLATED, crc(data), data.length, outputStream.toByteArray());
+		} finally {
+			deflater.end();
+		}
+	}
+
+	private static long crc(byte[] data) {
+		CRC32 crc32 = new CRC32();
+		crc32.update(data, 0, data.length);
+		return crc32.getValue();
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public int getMethod() {
+		return method;
+	}
+
+	public long getCrc() {
+		return crc;
+	}
+
+	public long getSize() {
+		return size;
+	}
+
+	public long getCompressedSize() {
+		return compressedSize;
+	}
+
+	/**
+	 * Modification time in milliseconds, -1 when the time the entry is written
+	 * should be used.
+	 */
+	public long getTime() {
+		return time;
+	}
+
+	public void setTime(long time) {
+		this.time = time;
+	}
+
+	public void writeData(OutputStream outputStream) throws IOException {
+		outputStream.write(data);
+	}
+}
@@ -0,0 +1,274 @@
+package org.opensourcebim.bcf.zip;
+
+/******************************************************************************
+ * Copyright (C) 2009-2018  BIMserver.org
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see {@literal<http://www.gnu.org/licenses/>}.
+ *****************************************************************************/
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipException;
+
+/**
+ * The central directory of a zip file, read directly from a FileChannel. It
+ * knows where the compressed data of every entry is located, so entries can be
+ * copied to another archive without inflating and deflating them.
+ */
+public class ZipDirectory {
+	private static final int CENTRAL_DIRECTORY_HEADER = 0x02014b50;
+	private static final int END_OF_CENTRAL_DIRECTORY = 0x06054b50;
+	private static final int ZIP64_END_OF_CENTRAL_DIRECTORY = 0x06064b50;
+	private static final int ZIP64_END_OF_CENTRAL_DIRECTORY_LOCATOR = 0x07064b50;
+	private static final int LOCAL_FILE_HEADER = 0x04034b50;
+	private static final long MAX_32 = 0xFFFFFFFFL;
+
+	private final FileChannel channel;
+	private final Map<String, Entry> entries = new LinkedHashMap<>();
+	private long centralDirectoryOffset;
+
+	public class Entry {
+		private final String name;
+		private final int flags;
+		private final int method;
+		private final long dosTime;
+		private final long crc;
+		private final long size;
+		private final long compressedSize;
+		private final long localHeaderOffset;
+		private volatile long dataOffset = -1;
+
+		private Entry(String name, int flags, int method, long dosTime, long crc, long size, long compressedSize, long localHeaderOffset) {
+			this.name = name;
+			this.flags = flags;
+			this.method = method;
+			this.dosTime = dosTime;
+			this.crc = crc;
+			this.size = size;
+			this.compressedSize = compressedSize;
+			this.localHeaderOffset = localHeaderOffset;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public int getFlags() {
+			return flags;
+		}
+
+		public int getMethod() {
+			return method;
+		}
+
+		public long getDosTime() {
+			return dosTime;
+		}
+
+		public long getCrc() {
+			return crc;
+		}
+
+		public long getSize() {
+			return size;
+		}
+
+		public long getCompressedSize() {
+			return compressedSize;
+		}
+
+		public long getLocalHeaderOffset() {
+			return localHeaderOffset;
+		}
+
+		public boolean isEncrypted() {
+			return (flags & 1) != 0;
+		}
+
+		public long getTime() {
+			int year = (int) ((dosTime >> 25) & 0x7f) + 1980;
+			int month = (int) ((dosTime >> 21) & 0x0f);
+			int day = (int) ((dosTime >> 16) & 0x1f);
+			int hour = (int) ((dosTime >> 11) & 0x1f);
+			int minute = (int) ((dosTime >> 5) & 0x3f);
+			int second = (int) ((dosTime << 1) & 0x3e);
+			try {
+				return LocalDateTime.of(year, month, day, hour, minute, second).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+			} catch (RuntimeException e) {
+				return -1;
+			}
+		}
+
+		public long getDataOffset() throws IOException {
+			if (dataOffset == -1) {
+				ByteBuffer header = read(localHeaderOffset, 30);
+				if (header.getInt(0) != LOCAL_FILE_HEADER) {
+					throw new ZipException("Invalid local file header for " + name);
+				}
+				dataOffset = localHeaderOffset + 30 + (header.getShort(26) & 0xFFFF) + (header.getShort(28) & 0xFFFF);
+			}
+			return dataOffset;
+		}
+
+		/**
+		 * The compressed data of this entry, to be written under the given name.
+		 */
+		public RawZipEntry toRawZipEntry(String targetName) {
+			RawZipEntry rawZipEntry = new RawZipEntry(targetName, method, crc, size, compressedSize) {
+				@Override
+				public void writeData(OutputStream outputStream) throws IOException {
+					transferTo(getDataOffset(), getCompressedSize(), outputStream);
+				}
+			};
+			rawZipEntry.setTime(getTime());
+			return rawZipEntry;
+		}
+	}
+
+	public ZipDirectory(FileChannel channel) throws IOException {
+		this.channel = channel;
+		readCentralDirectory();
+	}
+
+	private void readCentralDirectory() throws IOException {
+		long fileSize = channel.size();
+		int tailSize = (int) Math.min(fileSize, 22 + 0xFFFF);
+		ByteBuffer tail = read(fileSize - tailSize, tailSize);
+		int endPosition = -1;
+		for (int i = tailSize - 22; i >= 0; i--) {
+			if (tail.getInt(i) == END_OF_CENTRAL_DIRECTORY) {
+				endPosition = i;
+				break;
+			}
+		}
+		if (endPosition == -1) {
+			throw new ZipException("End of central directory not found");
+		}
+		long entryCount = tail.getShort(endPosition + 10) & 0xFFFF;
+		long centralDirectorySize = tail.getInt(endPosition + 12) & MAX_32;
+		centralDirectoryOffset = tail.getInt(endPosition + 16) & MAX_32;
+		long endOffset = fileSize - tailSize + endPosition;
+		if ((entryCount == 0xFFFF || centralDirectorySize == MAX_32 || centralDirectoryOffset == MAX_32) && endOffset >= 20) {
+			ByteBuffer locator = read(endOffset - 20, 20);
+			if (locator.getInt(0) == ZIP64_END_OF_CENTRAL_DIRECTORY_LOCATOR) {
+				ByteBuffer zip64End = read(locator.getLong(8), 56);
+				if (zip64End.getInt(0) != ZIP64_END_OF_CENTRAL_DIRECTORY) {
+					throw new ZipException("Invalid Zip64 end of central directory");
+				}
+				entryCount = zip64End.getLong(32);
+				centralDirectorySize = zip64End.getLong(40);
+				centralDirectoryOffset = zip64End.getLong(48);
+			}
+		}
+		if (centralDirectorySize > Integer.MAX_VALUE) {
+			throw new ZipException("Central directory too large");
+		}
+		ByteBuffer directory = read(centralDirectoryOffset, (int) centralDirectorySize);
+		int position = 0;
+		for (long i = 0; i < entryCount; i++) {
+			if (directory.getInt(position) != CENTRAL_DIRECTORY_HEADER) {
+				throw new ZipException("Invalid central directory header");
+			}
+			int flags = directory.getShort(position + 8) & 0xFFFF;
+			int method = directory.getShort(position + 10) & 0xFFFF;
+			long dosTime = directory.getInt(position + 12) & MAX_32;
+			long crc = directory.getInt(position + 16) & MAX_32;
+			long compressedSize = directory.getInt(position + 20) & MAX_32;
+			long size = directory.getInt(position + 24) & MAX_32;
+			int nameLength = directory.getShort(position + 28) & 0xFFFF;
+			int extraLength = directory.getShort(position + 30) & 0xFFFF;
+			int commentLength = directory.getShort(position + 32) & 0xFFFF;
+			long localHeaderOffset = directory.getInt(position + 42) & MAX_32;
+			byte[] nameBytes = new byte[nameLength];
+			directory.position(position + 46);
+			directory.get(nameBytes);
+			int extraPosition = position + 46 + nameLength;
+			int extraEnd = extraPosition + extraLength;
+			while (extraPosition + 4 <= extraEnd) {
+				int headerId = directory.getShort(extraPosition) & 0xFFFF;
+				int dataSize = directory.getShort(extraPosition + 2) & 0xFFFF;
+				if (headerId == 0x0001) {
+					int fieldPosition = extraPosition + 4;
+					if (size == MAX_32) {
+						size = directory.getLong(fieldPosition);
+						fieldPosition += 8;
+					}
+					if (compressedSize == MAX_32) {
+						compressedSize = directory.getLong(fieldPosition);
+						fieldPosition += 8;
+					}
+					if (localHeaderOffset == MAX_32) {
+						localHeaderOffset = directory.getLong(fieldPosition);
+					}
+				}
+				extraPosition += 4 + dataSize;
+			}
+			String name = new String(nameBytes, StandardCharsets.UTF_8);
+			entries.put(name, new Entry(name, flags, method, dosTime, crc, size, compressedSize, localHeaderOffset));
+			position = extraEnd + commentLength;
+		}
+	}
+
+	private ByteBuffer read(long position, int length) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer, position + buffer.position()) == -1) {
+				throw new EOFException();
+			}
+		}
+		buffer.clear();
+		return buffer;
+	}
+
+	private void transferTo(long position, long count, OutputStream outputStream) throws IOException {
+		WritableByteChannel target = Channels.newChannel(outputStream);
+		long transferred = 0;
+		while (transferred < count) {
+			long result = channel.transferTo(position + transferred, count - transferred, target);
+			if (result <= 0) {
+				throw new EOFException();
+			}
+			transferred += result;
+		}
+	}
+
+	public Entry getEntry(String name) {
+		return entries.get(name);
+	}
+
+	public List<Entry> getEntries() {
+		return Collections.unmodifiableList(new ArrayList<>(entries.values()));
+	}
+
+	/**
+	 * Offset of the first central directory header.
+	 */
+	public long getCentralDirectoryOffset() {
+		return centralDirectoryOffset;
+	}
+}
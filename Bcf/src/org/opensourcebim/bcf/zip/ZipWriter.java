@@ -0,0 +1,377 @@
+package org.opensourcebim.bcf.zip;
+
+/******************************************************************************
+ * Copyright (C) 2009-2018  BIMserver.org
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see {@literal<http://www.gnu.org/licenses/>}.
+ *****************************************************************************/
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+
+/**
+ * Minimal zip writer for entries that have been compressed beforehand. Unlike
+ * ZipOutputStream it never (re)compresses data, which allows entries to be
+ * deflated in parallel or copied from another archive as they are. Large
+ * entries can also be streamed through {@link #openStored} and
+ * {@link #openDeflated}. Archives that grow beyond 4 GB or 65535 entries get
+ * Zip64 records.
+ */
+public class ZipWriter implements Closeable {
+	private static final int LOCAL_FILE_HEADER = 0x04034b50;
+	private static final int CENTRAL_DIRECTORY_HEADER = 0x02014b50;
+	private static final int END_OF_CENTRAL_DIRECTORY = 0x06054b50;
+	private static final int ZIP64_END_OF_CENTRAL_DIRECTORY = 0x06064b50;
+	private static final int ZIP64_END_OF_CENTRAL_DIRECTORY_LOCATOR = 0x07064b50;
+	private static final int DATA_DESCRIPTOR = 0x08074b50;
+	private static final int UTF8_FLAG = 0x0800;
+	private static final int DATA_DESCRIPTOR_FLAG = 0x0008;
+	private static final long MAX_32 = 0xFFFFFFFFL;
+	private static final int MAX_16 = 0xFFFF;
+
+	private final OutputStream outputStream;
+	private final List<Record> records = new ArrayList<>();
+	private final Set<String> names = new HashSet<>();
+	private long offset;
+	private boolean finished;
+	private EntryOutputStream openEntry;
+
+	private static class Record {
+		byte[] name;
+		int flags;
+		int method;
+		long dosTime;
+		long crc;
+		long size;
+		long compressedSize;
+		long offset;
+	}
+
+	public ZipWriter(OutputStream outputStream) {
+		this(outputStream, 0);
+	}
+
+	/**
+	 * Creates a writer that continues an existing zip file, the output stream
+	 * has to be positioned at the given offset in that file.
+	 */
+	public ZipWriter(OutputStream outputStream, long offset) {
+		this.outputStream = outputStream;
+		this.offset = offset;
+	}
+
+	/**
+	 * Adds an entry that already exists earlier in the file to the central
+	 * directory, without writing its data again.
+	 */
+	public void addExisting(ZipDirectory.Entry entry) throws IOException {
+		if (!names.add(entry.getName())) {
+			throw new ZipException("duplicate entry: " + entry.getName());
+		}
+		Record record = new Record();
+		record.name = entry.getName().getBytes(StandardCharsets.UTF_8);
+		record.flags = entry.getFlags();
+		record.method = entry.getMethod();
+		record.dosTime = entry.getDosTime();
+		record.crc = entry.getCrc();
+		record.size = entry.getSize();
+		record.compressedSize = entry.getCompressedSize();
+		record.offset = entry.getLocalHeaderOffset();
+		records.add(record);
+	}
+
+	public void write(RawZipEntry entry) throws IOException {
+		if (entry.getSize() >= MAX_32 || entry.getCompressedSize() >= MAX_32) {
+			throw new ZipException("Entry too large: " + entry.getName());
+		}
+		Record record = writeLocalHeader(entry.getName(), UTF8_FLAG, entry.getMethod(), entry.getTime(), entry.getCrc(), entry.getSize(), entry.getCompressedSize());
+		entry.writeData(outputStream);
+		offset += record.compressedSize;
+		records.add(record);
+	}
+
+	/**
+	 * Starts a STORED entry of which the checksum and size are known up front.
+	 * The data is written to the returned stream, closing it completes the
+	 * entry. No other entry can be written until then.
+	 */
+	public OutputStream openStored(String name, long crc, long size) throws IOException {
+		if (size >= MAX_32) {
+			throw new ZipException("Entry too large: " + name);
+		}
+		openEntry = new EntryOutputStream(writeLocalHeader(name, UTF8_FLAG, ZipEntry.STORED, -1, crc, size, size), null);
+		return openEntry;
+	}
+
+	/**
+	 * Starts a DEFLATED entry of which the checksum and sizes are not known up
+	 * front. The data written to the returned stream is compressed as it
+	 * arrives, closing the stream completes the entry with a data descriptor.
+	 */
+	public OutputStream openDeflated(String name, int level) throws IOException {
+		openEntry = new EntryOutputStream(writeLocalHeader(name, UTF8_FLAG | DATA_DESCRIPTOR_FLAG, ZipEntry.DEFLATED, -1, 0, 0, 0), new Deflater(level, true));
+		return openEntry;
+	}
+
+	private Record writeLocalHeader(String name, int flags, int method, long time, long crc, long size, long compressedSize) throws IOException {
+		if (finished) {
+			throw new IOException("ZipWriter has already been finished");
+		}
+		if (openEntry != null) {
+			throw new IOException("Entry " + openEntry.getName() + " has not been closed");
+		}
+		if (!names.add(name)) {
+			throw new ZipException("duplicate entry: " + name);
+		}
+		Record record = new Record();
+		record.name = name.getBytes(StandardCharsets.UTF_8);
+		record.flags = flags;
+		record.method = method;
+		record.dosTime = toDosTime(time == -1 ? System.currentTimeMillis() : time);
+		record.crc = crc;
+		record.size = size;
+		record.compressedSize = compressedSize;
+		record.offset = offset;
+
+		ByteBuffer header = ByteBuffer.allocate(30 + record.name.length).order(ByteOrder.LITTLE_ENDIAN);
+		header.putInt(LOCAL_FILE_HEADER);
+		header.putShort((short) 20);
+		header.putShort((short) record.flags);
+		header.putShort((short) record.method);
+		header.putInt((int) record.dosTime);
+		header.putInt((int) record.crc);
+		header.putInt((int) record.compressedSize);
+		header.putInt((int) record.size);
+		header.putShort((short) record.name.length);
+		header.putShort((short) 0);
+		header.put(record.name);
+		write(header);
+		return record;
+	}
+
+	/**
+	 * The data of an entry that is being written, compressed on the fly when
+	 * it has a deflater.
+	 */
+	private class EntryOutputStream extends OutputStream {
+		private final Record record;
+		private final Deflater deflater;
+		private final CRC32 crc = new CRC32();
+		private final byte[] buffer;
+		private long size;
+		private long compressedSize;
+		private boolean closed;
+
+		EntryOutputStream(Record record, Deflater deflater) {
+			this.record = record;
+			this.deflater = deflater;
+			this.buffer = deflater == null ? null : new byte[8192];
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			write(new byte[] { (byte) b }, 0, 1);
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			if (closed) {
+				throw new IOException("Entry " + getName() + " has already been closed");
+			}
+			crc.update(b, off, len);
+			size += len;
+			if (deflater == null) {
+				outputStream.write(b, off, len);
+				compressedSize += len;
+				return;
+			}
+			deflater.setInput(b, off, len);
+			while (!deflater.needsInput()) {
+				deflate();
+			}
+		}
+
+		private String getName() {
+			return new String(record.name, StandardCharsets.UTF_8);
+		}
+
+		private void deflate() throws IOException {
+			int length = deflater.deflate(buffer);
+			outputStream.write(buffer, 0, length);
+			compressedSize += length;
+		}
+
+		@Override
+		public void close() throws IOException {
+			if (closed) {
+				return;
+			}
+			closed = true;
+			openEntry = null;
+			if (deflater == null) {
+				if (size != record.size || crc.getValue() != record.crc) {
+					throw new ZipException("Entry " + getName() + " does not match its checksum and size");
+				}
+			} else {
+				try {
+					deflater.finish();
+					while (!deflater.finished()) {
+						deflate();
+					}
+				} finally {
+					deflater.end();
+				}
+				if (size >= MAX_32 || compressedSize >= MAX_32) {
+					throw new ZipException("Entry too large: " + getName());
+				}
+				record.crc = crc.getValue();
+				record.size = size;
+				record.compressedSize = compressedSize;
+			}
+			offset += compressedSize;
+			if (deflater != null) {
+				ByteBuffer descriptor = ByteBuffer.allocate(16).order(ByteOrder.LITTLE_ENDIAN);
+				descriptor.putInt(DATA_DESCRIPTOR);
+				descriptor.putInt((int) record.crc);
+				descriptor.putInt((int) record.compressedSize);
+				descriptor.putInt((int) record.size);
+				ZipWriter.this.write(descriptor);
+			}
+			records.add(record);
+		}
+	}
+
+	/**
+	 * Whether an entry with this name has been written or added already.
+	 */
+	public boolean contains(String name) {
+		return names.contains(name);
+	}
+
+	public void flush() throws IOException {
+		outputStream.flush();
+	}
+
+	public void finish() throws IOException {
+		if (finished) {
+			return;
+		}
+		finished = true;
+		long centralDirectoryOffset = offset;
+		for (Record record : records) {
+			boolean zip64 = record.offset >= MAX_32 || record.size >= MAX_32 || record.compressedSize >= MAX_32;
+			int zip64Length = (record.size >= MAX_32 ? 8 : 0) + (record.compressedSize >= MAX_32 ? 8 : 0) + (record.offset >= MAX_32 ? 8 : 0);
+			ByteBuffer header = ByteBuffer.allocate(46 + record.name.length + (zip64 ? 4 + zip64Length : 0)).order(ByteOrder.LITTLE_ENDIAN);
+			header.putInt(CENTRAL_DIRECTORY_HEADER);
+			header.putShort((short) (zip64 ? 45 : 20));
+			header.putShort((short) (zip64 ? 45 : 20));
+			header.putShort((short) record.flags);
+			header.putShort((short) record.method);
+			header.putInt((int) record.dosTime);
+			header.putInt((int) record.crc);
+			header.putInt((int) Math.min(record.compressedSize, MAX_32));
+			header.putInt((int) Math.min(record.size, MAX_32));
+			header.putShort((short) record.name.length);
+			header.putShort((short) (zip64 ? 4 + zip64Length : 0));
+			header.putShort((short) 0);
+			header.putShort((short) 0);
+			header.putShort((short) 0);
+			header.putInt(0);
+			header.putInt((int) Math.min(record.offset, MAX_32));
+			header.put(record.name);
+			if (zip64) {
+				header.putShort((short) 0x0001);
+				header.putShort((short) zip64Length);
+				if (record.size >= MAX_32) {
+					header.putLong(record.size);
+				}
+				if (record.compressedSize >= MAX_32) {
+					header.putLong(record.compressedSize);
+				}
+				if (record.offset >= MAX_32) {
+					header.putLong(record.offset);
+				}
+			}
+			write(header);
+		}
+		long centralDirectorySize = offset - centralDirectoryOffset;
+		if (records.size() >= MAX_16 || centralDirectoryOffset >= MAX_32 || centralDirectorySize >= MAX_32) {
+			long zip64EndOffset = offset;
+			ByteBuffer end = ByteBuffer.allocate(56 + 20).order(ByteOrder.LITTLE_ENDIAN);
+			end.putInt(ZIP64_END_OF_CENTRAL_DIRECTORY);
+			end.putLong(44);
+			end.putShort((short) 45);
+			end.putShort((short) 45);
+			end.putInt(0);
+			end.putInt(0);
+			end.putLong(records.size());
+			end.putLong(records.size());
+			end.putLong(centralDirectorySize);
+			end.putLong(centralDirectoryOffset);
+			end.putInt(ZIP64_END_OF_CENTRAL_DIRECTORY_LOCATOR);
+			end.putInt(0);
+			end.putLong(zip64EndOffset);
+			end.putInt(1);
+			write(end);
+		}
+		ByteBuffer end = ByteBuffer.allocate(22).order(ByteOrder.LITTLE_ENDIAN);
+		end.putInt(END_OF_CENTRAL_DIRECTORY);
+		end.putShort((short) 0);
+		end.putShort((short) 0);
+		end.putShort((short) Math.min(records.size(), MAX_16));
+		end.putShort((short) Math.min(records.size(), MAX_16));
+		end.putInt((int) Math.min(centralDirectorySize, MAX_32));
+		end.putInt((int) Math.min(centralDirectoryOffset, MAX_32));
+		end.putShort((short) 0);
+		write(end);
+		outputStream.flush();
+	}
+
+	private void write(ByteBuffer buffer) throws IOException {
+		outputStream.write(buffer.array(), 0, buffer.position());
+		offset += buffer.position();
+	}
+
+	private static long toDosTime(long time) {
+		LocalDateTime dateTime = LocalDateTime.ofInstant(Instant.ofEpochMilli(time), ZoneId.systemDefault());
+		if (dateTime.getYear() < 1980) {
+			return (1 << 21) | (1 << 16);
+		}
+		return (long) (dateTime.getYear() - 1980) << 25 | dateTime.getMonthValue() << 21 | dateTime.getDayOfMonth() << 16 | dateTime.getHour() << 11 | dateTime.getMinute() << 5 | dateTime.getSecond() >> 1;
+	}
+
+	@Override
+	public void close() throws IOException {
+		try {
+			finish();
+		} finally {
+			outputStream.close();
+		}
+	}
+}
@@ -0,0 +1,98 @@
+package org.opensourcebim.bcf.test;
+
+/******************************************************************************
+ * Copyright (C) 2009-2018  BIMserver.org
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see {@literal<http://www.gnu.org/licenses/>}.
+ *****************************************************************************/
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.opensourcebim.bcf.BcfException;
+import org.opensourcebim.bcf.BcfFile;
+import org.opensourcebim.bcf.ReadOptions;
+import org.opensourcebim.bcf.TopicFolder;
+import org.opensourcebim.bcf.attachment.AttachmentStore;
+import org.opensourcebim.bcf.attachment.DirectAttachmentStore;
+import org.opensourcebim.bcf.attachment.SpillingAttachmentStore;
+
+public class TestAttachmentStore {
+	private static final Path PATH = Paths.get("testdata/MaximumInformation.bcf");
+
+	@Test
+	public void testSpill() throws BcfException, IOException {
+		try (SpillingAttachmentStore attachmentStore = new SpillingAttachmentStore(100000)) {
+			BcfFile spilledBcf = read(attachmentStore);
+			Assert.assertTrue(attachmentStore.getMemoryUsed() <= 100000);
+			Assert.assertTrue(attachmentStore.getSpilled() > 0);
+			assertSameSnapshots(BcfFile.read(PATH), spilledBcf);
+		}
+	}
+
+	@Test
+	public void testDirectRoundTrip() throws BcfException, IOException {
+		BcfFile directBcf = read(new DirectAttachmentStore());
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		directBcf.write(out);
+		assertSameSnapshots(directBcf, BcfFile.read(out.toByteArray()));
+	}
+
+	@Test
+	public void testStreamingSnapshots() throws BcfException, IOException {
+		BcfFile readBcf = BcfFile.read(PATH);
+		try (BcfFile openedBcf = BcfFile.open(PATH); SpillingAttachmentStore attachmentStore = new SpillingAttachmentStore(1000)) {
+			for (TopicFolder topicFolder : openedBcf.getTopicFolders()) {
+				TopicFolder readTopicFolder = readBcf.getTopicFolder(topicFolder.getUuid().toString());
+				TopicFolder copy = new TopicFolder(topicFolder.getUuid());
+				copy.setAttachmentStore(attachmentStore);
+				for (String fileName : topicFolder.getSnapshotFileNames()) {
+					ByteArrayOutputStream out = new ByteArrayOutputStream();
+					Assert.assertEquals(readTopicFolder.getSnapshot(fileName).length, topicFolder.writeSnapshot(fileName, out));
+					Assert.assertArrayEquals(readTopicFolder.getSnapshot(fileName), out.toByteArray());
+					try (ReadableByteChannel channel = topicFolder.openSnapshotChannel(fileName)) {
+						copy.addSnapShot(fileName, channel);
+					}
+					Assert.assertArrayEquals(readTopicFolder.getSnapshot(fileName), copy.getSnapshot(fileName));
+				}
+			}
+			Assert.assertTrue(attachmentStore.getSpilled() > 0);
+		}
+	}
+
+	private BcfFile read(AttachmentStore attachmentStore) throws BcfException, IOException {
+		ReadOptions readOptions = new ReadOptions();
+		readOptions.setAttachmentStore(attachmentStore);
+		try (InputStream inputStream = Files.newInputStream(PATH)) {
+			return BcfFile.read(inputStream, readOptions);
+		}
+	}
+
+	private void assertSameSnapshots(BcfFile expected, BcfFile actual) {
+		for (TopicFolder topicFolder : expected.getTopicFolders()) {
+			TopicFolder actualTopicFolder = actual.getTopicFolder(topicFolder.getUuid().toString());
+			Assert.assertEquals(topicFolder.getSnapshotFileNames(), actualTopicFolder.getSnapshotFileNames());
+			for (String fileName : topicFolder.getSnapshotFileNames()) {
+				Assert.assertArrayEquals(topicFolder.getSnapshot(fileName), actualTopicFolder.getSnapshot(fileName));
+			}
+		}
+	}
+}
@@ -0,0 +1,57 @@
+package org.opensourcebim.bcf.test;
+
+/******************************************************************************
+ * Copyright (C) 2009-2018  BIMserver.org
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see {@literal<http://www.gnu.org/licenses/>}.
+ *****************************************************************************/
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.UUID;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import javax.xml.bind.JAXBException;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.opensourcebim.bcf.BcfContext;
+import org.opensourcebim.bcf.BcfException;
+import org.opensourcebim.bcf.BcfFile;
+
+public class TestBcfContext {
+	@Test
+	public void testWarmUp() throws JAXBException, BcfException, IOException {
+		BcfContext context = BcfContext.get().warmUp();
+		Assert.assertTrue(context.isWarmedUp());
+		Assert.assertNotNull(context.getCreationTime());
+		Assert.assertNotNull(context.getWarmUpTime());
+		Assert.assertSame(context.getJaxbContext(), BcfContext.get().getJaxbContext());
+		Assert.assertFalse(BcfFile.read(Paths.get("testdata/MaximumInformation.bcf")).getTopicFolders().isEmpty());
+	}
+
+	@Test(expected = BcfException.class)
+	public void testWrongRoot() throws BcfException, IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try (ZipOutputStream zipOutputStream = new ZipOutputStream(out)) {
+			zipOutputStream.putNextEntry(new ZipEntry(UUID.randomUUID() + "/markup.bcf"));
+			zipOutputStream.write("<Version VersionId=\"2.1\"/>".getBytes(StandardCharsets.UTF_8));
+			zipOutputStream.closeEntry();
+		}
+		BcfFile.read(out.toByteArray());
+	}
+}
@@ -0,0 +1,126 @@
+package org.opensourcebim.bcf.test;
+
+/******************************************************************************
+ * Copyright (C) 2009-2018  BIMserver.org
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see {@literal<http://www.gnu.org/licenses/>}.
+ *****************************************************************************/
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.UUID;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.opensourcebim.bcf.BcfException;
+import org.opensourcebim.bcf.BcfFile;
+import org.opensourcebim.bcf.BcfReader;
+import org.opensourcebim.bcf.BcfWriter;
+import org.opensourcebim.bcf.TopicEvent;
+import org.opensourcebim.bcf.TopicFolder;
+import org.opensourcebim.bcf.UncheckedBcfException;
+
+public class TestBcfReader {
+	@Test
+	public void testStream() throws BcfException, IOException {
+		Path path = Paths.get("testdata/MaximumInformation.bcf");
+		BcfFile bcfFile = BcfFile.read(path);
+		int markups = 0;
+		try (InputStream inputStream = Files.newInputStream(path); BcfReader bcfReader = BcfReader.stream(inputStream)) {
+			while (bcfReader.hasNext()) {
+				TopicEvent event = bcfReader.next();
+				TopicFolder topicFolder = bcfFile.getTopicFolder(event.getTopicUuid().toString());
+				if (event.getType() == TopicEvent.Type.MARKUP) {
+					Assert.assertEquals(topicFolder.getMarkup().getTopic().getTitle(), event.getMarkup().getTopic().getTitle());
+					markups++;
+				} else if (event.getType() == TopicEvent.Type.SNAPSHOT) {
+					Assert.assertArrayEquals(topicFolder.getSnapshot(event.getName()), event.getData());
+				}
+			}
+			Assert.assertEquals(bcfFile.getProject().getProjectId(), bcfReader.getProject().getProjectId());
+		}
+		Assert.assertEquals(bcfFile.getTopicFolders().size(), markups);
+	}
+
+	@Test
+	public void testUpdatedFile() throws BcfException, IOException {
+		Path path = Files.createTempFile("bcf", ".bcf");
+		Files.copy(Paths.get("testdata/MaximumInformation.bcf"), path, StandardCopyOption.REPLACE_EXISTING);
+		try {
+			String topicUuid;
+			int topics;
+			try (BcfFile bcfFile = BcfFile.open(path)) {
+				TopicFolder topicFolder = bcfFile.getTopicFolders().iterator().next();
+				topicUuid = topicFolder.getUuid().toString();
+				topicFolder.getMarkup().getTopic().setTopicStatus("Closed");
+				bcfFile.update();
+				bcfFile.compact();
+				topics = bcfFile.getTopicFolders().size();
+			}
+			int markups = 0;
+			try (InputStream inputStream = Files.newInputStream(path); BcfReader bcfReader = BcfReader.stream(inputStream)) {
+				while (bcfReader.hasNext()) {
+					TopicEvent event = bcfReader.next();
+					if (event.getType() == TopicEvent.Type.MARKUP) {
+						if (event.getTopicUuid().toString().equals(topicUuid)) {
+							Assert.assertEquals("Closed", event.getMarkup().getTopic().getTopicStatus());
+						}
+						markups++;
+					}
+				}
+			}
+			Assert.assertEquals(topics, markups);
+		} finally {
+			Files.delete(path);
+		}
+	}
+
+	@Test
+	public void testDefaultSnapshot() throws BcfException, IOException {
+		UUID topicUuid = UUID.randomUUID();
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		try (BcfWriter bcfWriter = new BcfWriter(outputStream)) {
+			bcfWriter.writeSnapshot(topicUuid, "mysnapshot.png", new byte[] { 1 });
+			bcfWriter.writeSnapshot(topicUuid, "snapshot.png", new byte[] { 2 });
+		}
+		try (BcfReader bcfReader = BcfReader.stream(new ByteArrayInputStream(outputStream.toByteArray()))) {
+			Assert.assertFalse(bcfReader.next().isDefaultSnapshot());
+			Assert.assertTrue(bcfReader.next().isDefaultSnapshot());
+		}
+	}
+
+	@Test
+	public void testMalformedMarkup() throws IOException {
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		try (ZipOutputStream zipOutputStream = new ZipOutputStream(outputStream)) {
+			zipOutputStream.putNextEntry(new ZipEntry(UUID.randomUUID() + "/markup.bcf"));
+			zipOutputStream.write("<Markup>".getBytes(StandardCharsets.UTF_8));
+		}
+		try (BcfReader bcfReader = BcfReader.stream(new ByteArrayInputStream(outputStream.toByteArray()))) {
+			bcfReader.hasNext();
+			Assert.fail("A markup that cannot be parsed should not be returned");
+		} catch (UncheckedBcfException e) {
+			Assert.assertNotNull(e.getCause());
+		}
+	}
+}
@@ -0,0 +1,121 @@
+package org.opensourcebim.bcf.test;
+
+/******************************************************************************
+ * Copyright (C) 2009-2018  BIMserver.org
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see {@literal<http://www.gnu.org/licenses/>}.
+ *****************************************************************************/
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipInputStream;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.opensourcebim.bcf.BcfException;
+import org.opensourcebim.bcf.BcfFile;
+import org.opensourcebim.bcf.BcfReader;
+import org.opensourcebim.bcf.BcfWriter;
+import org.opensourcebim.bcf.TopicEvent;
+import org.opensourcebim.bcf.TopicFolder;
+import org.opensourcebim.bcf.WriteOptions;
+
+public class TestBcfWriter {
+	@Test
+	public void testStreamingCopy() throws BcfException, IOException {
+		Path path = Paths.get("testdata/opmerkingenv1.bcfzip");
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		try (InputStream inputStream = Files.newInputStream(path); BcfReader bcfReader = BcfReader.stream(inputStream); BcfWriter bcfWriter = new BcfWriter(outputStream)) {
+			while (bcfReader.hasNext()) {
+				TopicEvent event = bcfReader.next();
+				switch (event.getType()) {
+				case MARKUP:
+					bcfWriter.writeMarkup(event.getTopicUuid(), event.getMarkup());
+					break;
+				case VIEWPOINT:
+					bcfWriter.writeViewpoint(event.getTopicUuid(), event.getFileName(), event.getVisualizationInfo());
+					break;
+				case SNAPSHOT:
+					bcfWriter.writeSnapshot(event.getTopicUuid(), event.getFileName(), event.getInputStream());
+					break;
+				}
+			}
+		}
+		try (ZipInputStream zipInputStream = new ZipInputStream(new ByteArrayInputStream(outputStream.toByteArray()))) {
+			for (ZipEntry zipEntry = zipInputStream.getNextEntry(); zipEntry != null; zipEntry = zipInputStream.getNextEntry()) {
+				if (zipEntry.getName().endsWith(".png")) {
+					Assert.assertEquals(zipEntry.getName(), ZipEntry.STORED, zipEntry.getMethod());
+				}
+			}
+		}
+		BcfFile original = BcfFile.read(path);
+		BcfFile copy = BcfFile.read(outputStream.toByteArray());
+		Assert.assertEquals(original.toJson().get("topics"), copy.toJson().get("topics"));
+		for (TopicFolder topicFolder : original.getTopicFolders()) {
+			Assert.assertArrayEquals(topicFolder.getDefaultSnapShot(), copy.getTopicFolder(topicFolder.getUuid().toString()).getDefaultSnapShot());
+		}
+	}
+
+	@Test
+	public void testStreamedSnapshots() throws BcfException, IOException {
+		BcfFile original = BcfFile.read(Paths.get("testdata/opmerkingenv1.bcfzip"));
+		Path path = Files.createTempFile("bcf", ".bcfzip");
+		try {
+			original.write(path);
+			try (ZipFile zipFile = new ZipFile(path.toFile())) {
+				for (TopicFolder topicFolder : original.getTopicFolders()) {
+					Assert.assertEquals(ZipEntry.STORED, zipFile.getEntry(topicFolder.getUuid() + "/snapshot.png").getMethod());
+				}
+			}
+			for (BcfFile written : new BcfFile[] { BcfFile.read(path), BcfFile.read(Files.readAllBytes(path)) }) {
+				for (TopicFolder topicFolder : original.getTopicFolders()) {
+					Assert.assertArrayEquals(topicFolder.getDefaultSnapShot(), written.getTopicFolder(topicFolder.getUuid().toString()).getDefaultSnapShot());
+				}
+			}
+		} finally {
+			Files.delete(path);
+		}
+	}
+
+	@Test
+	public void testParallelWrite() throws BcfException, IOException {
+		BcfFile original = BcfFile.read(Paths.get("testdata/opmerkingenv1.bcfzip"));
+		Path path = Files.createTempFile("bcf", ".bcfzip");
+		ExecutorService executorService = Executors.newFixedThreadPool(4);
+		try {
+			WriteOptions writeOptions = new WriteOptions();
+			writeOptions.setExecutor(executorService);
+			original.write(path, writeOptions);
+			try (ZipFile zipFile = new ZipFile(path.toFile())) {
+				for (TopicFolder topicFolder : original.getTopicFolders()) {
+					Assert.assertEquals(ZipEntry.STORED, zipFile.getEntry(topicFolder.getUuid() + "/snapshot.png").getMethod());
+					Assert.assertEquals(ZipEntry.DEFLATED, zipFile.getEntry(topicFolder.getUuid() + "/markup.bcf").getMethod());
+				}
+			}
+			Assert.assertEquals(original.toJson().get("topics"), BcfFile.read(path).toJson().get("topics"));
+		} finally {
+			executorService.shutdown();
+			Files.delete(path);
+		}
+	}
+}
@@ -0,0 +1,102 @@
+package org.opensourcebim.bcf.test;
+
+/******************************************************************************
+ * Copyright (C) 2009-2018  BIMserver.org
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see {@literal<http://www.gnu.org/licenses/>}.
+ *****************************************************************************/
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.opensourcebim.bcf.BcfException;
+import org.opensourcebim.bcf.BcfFile;
+import org.opensourcebim.bcf.CompactComponentList;
+import org.opensourcebim.bcf.ReadOptions;
+import org.opensourcebim.bcf.TopicFolder;
+import org.opensourcebim.bcf.visinfo.Component;
+import org.opensourcebim.bcf.visinfo.VisualizationInfo;
+
+public class TestCompactComponentList {
+	@Test
+	public void testList() {
+		List<Component> components = new ArrayList<>();
+		components.add(createComponent("0cSRUx$EX1NRjqiKcYQ$a0", "Revit", "1234"));
+		components.add(createComponent("3zzzzzzzzzzzzzzzzzzzz$", null, null));
+		components.add(createComponent("00000000000000000000_0", "Revit", null));
+		components.add(createComponent("not a compressed guid", null, "5678"));
+		components.add(createComponent(null, "Tekla", "9"));
+		CompactComponentList compactList = new CompactComponentList(components);
+		assertSameComponents(components, compactList);
+
+		components.add(1, createComponent("1jQQiGIAnFzxOUzrdmJYDS", null, null));
+		compactList.add(1, createComponent("1jQQiGIAnFzxOUzrdmJYDS", null, null));
+		components.remove(3);
+		compactList.remove(3);
+		components.set(0, createComponent("23Zwlpd71EyvHlH6OZ77nK", "ArchiCAD", null));
+		compactList.set(0, createComponent("23Zwlpd71EyvHlH6OZ77nK", "ArchiCAD", null));
+		assertSameComponents(components, compactList);
+		Assert.assertEquals("1jQQiGIAnFzxOUzrdmJYDS", compactList.getIfcGuid(1));
+	}
+
+	@Test
+	public void testReadCompact() throws BcfException, IOException {
+		ReadOptions readOptions = new ReadOptions();
+		readOptions.setCompactComponents(true);
+		BcfFile compactBcf;
+		try (InputStream inputStream = Files.newInputStream(Paths.get("testdata/MaximumInformation.bcf"))) {
+			compactBcf = BcfFile.read(inputStream, readOptions);
+		}
+		TopicFolder topicFolder = compactBcf.getTopicFolder("7ddc3ef0-0ab7-43f1-918a-45e38b42369c");
+		VisualizationInfo visualizationInfo = topicFolder.getVisualizationInfo("Viewpoint_4ab7514b-b216-4d56-98d2-45cf8500ff5a.bcfv");
+		Assert.assertTrue(visualizationInfo.getComponents().getSelection().getComponent() instanceof CompactComponentList);
+		Assert.assertTrue(visualizationInfo.getComponents().getVisibility().getExceptions().getComponent() instanceof CompactComponentList);
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		compactBcf.write(out);
+		BcfFile readBcf = BcfFile.read(Paths.get("testdata/MaximumInformation.bcf"));
+		BcfFile writtenBcf = BcfFile.read(out.toByteArray());
+		for (String fileName : topicFolder.getViewpointFileNames()) {
+			VisualizationInfo expected = readBcf.getTopicFolder(topicFolder.getUuid().toString()).getVisualizationInfo(fileName);
+			VisualizationInfo written = writtenBcf.getTopicFolder(topicFolder.getUuid().toString()).getVisualizationInfo(fileName);
+			assertSameComponents(expected.getComponents().getSelection().getComponent(), written.getComponents().getSelection().getComponent());
+			CompactComponentList.compact(expected);
+			assertSameComponents(written.getComponents().getSelection().getComponent(), expected.getComponents().getSelection().getComponent());
+		}
+	}
+
+	private static Component createComponent(String ifcGuid, String originatingSystem, String authoringToolId) {
+		Component component = new Component();
+		component.setIfcGuid(ifcGuid);
+		component.setOriginatingSystem(originatingSystem);
+		component.setAuthoringToolId(authoringToolId);
+		return component;
+	}
+
+	private static void assertSameComponents(List<Component> expected, List<Component> actual) {
+		Assert.assertEquals(expected.size(), actual.size());
+		for (int i = 0; i < expected.size(); i++) {
+			Assert.assertEquals(expected.get(i).getIfcGuid(), actual.get(i).getIfcGuid());
+			Assert.assertEquals(expected.get(i).getOriginatingSystem(), actual.get(i).getOriginatingSystem());
+			Assert.assertEquals(expected.get(i).getAuthoringToolId(), actual.get(i).getAuthoringToolId());
+		}
+	}
+}
@@ -0,0 +1,69 @@
+package org.opensourcebim.bcf.test;
+
+/******************************************************************************
+ * Copyright (C) 2009-2018  BIMserver.org
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see {@literal<http://www.gnu.org/licenses/>}.
+ *****************************************************************************/
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.opensourcebim.bcf.BcfException;
+import org.opensourcebim.bcf.BcfFile;
+import org.opensourcebim.bcf.ComponentIndex;
+import org.opensourcebim.bcf.ComponentIndex.ComponentReference;
+import org.opensourcebim.bcf.ComponentIndex.Usage;
+import org.opensourcebim.bcf.TopicFolder;
+import org.opensourcebim.bcf.visinfo.Component;
+import org.opensourcebim.bcf.visinfo.ComponentSelection;
+import org.opensourcebim.bcf.visinfo.Components;
+import org.opensourcebim.bcf.visinfo.VisualizationInfo;
+
+public class TestComponentIndex {
+	@Test
+	public void testFindByIfcGuid() throws BcfException, IOException {
+		try (BcfFile bcfFile = BcfFile.open(Paths.get("testdata/MaximumInformation.bcf"))) {
+			ComponentIndex componentIndex = bcfFile.getComponentIndex();
+			List<ComponentReference> references = componentIndex.findByIfcGuid("0cSRUx$EX1NRjqiKcYQ$a0");
+			Assert.assertTrue(references.size() >= 2);
+			boolean selected = false;
+			for (ComponentReference reference : references) {
+				Assert.assertEquals("7ddc3ef0-0ab7-43f1-918a-45e38b42369c", reference.getTopicFolderUuid().toString());
+				if (reference.getViewpoint().equals("Viewpoint_4ab7514b-b216-4d56-98d2-45cf8500ff5a.bcfv") && reference.getUsage() == Usage.SELECTION) {
+					selected = true;
+				}
+			}
+			Assert.assertTrue(selected);
+			Assert.assertTrue(componentIndex.findByIfcGuid("unknown").isEmpty());
+			Assert.assertSame(componentIndex, bcfFile.getComponentIndex());
+
+			TopicFolder topicFolder = bcfFile.createTopicFolder();
+			VisualizationInfo visualizationInfo = new VisualizationInfo();
+			visualizationInfo.setComponents(new Components());
+			visualizationInfo.getComponents().setSelection(new ComponentSelection());
+			Component component = new Component();
+			component.setIfcGuid("0cSRUx$EX1NRjqiKcYQ$a0");
+			component.setAuthoringToolId("42");
+			visualizationInfo.getComponents().getSelection().getComponent().add(component);
+			topicFolder.setVisualizationInfo(visualizationInfo);
+
+			Assert.assertEquals(2, bcfFile.getComponentIndex().getTopicFolderUuids("0cSRUx$EX1NRjqiKcYQ$a0").size());
+			Assert.assertEquals(topicFolder.getUuid(), bcfFile.getComponentIndex().findByAuthoringToolId("42").get(0).getTopicFolderUuid());
+		}
+	}
+}
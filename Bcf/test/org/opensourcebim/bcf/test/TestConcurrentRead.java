@@ -0,0 +1,73 @@
+package org.opensourcebim.bcf.test;
+
+/******************************************************************************
+ * Copyright (C) 2009-2018  BIMserver.org
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see {@literal<http://www.gnu.org/licenses/>}.
+ *****************************************************************************/
+
+import java.io.ByteArrayInputStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.opensourcebim.bcf.BcfFile;
+import org.opensourcebim.bcf.ReadOptions;
+
+public class TestConcurrentRead {
+	@Test
+	public void testConcurrentRead() throws Exception {
+		final byte[] data = Files.readAllBytes(Paths.get("testdata/opmerkingenv1.bcfzip"));
+		final String expected = BcfFile.read(BcfFile.read(data).toBytes()).toJson().toString();
+		ExecutorService executorService = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<String>> futures = new ArrayList<>();
+			for (int i = 0; i < 16; i++) {
+				futures.add(executorService.submit(new Callable<String>() {
+					@Override
+					public String call() throws Exception {
+						BcfFile bcfFile = BcfFile.read(data);
+						return BcfFile.read(bcfFile.toBytes()).toJson().toString();
+					}
+				}));
+			}
+			for (Future<String> future : futures) {
+				Assert.assertEquals(expected, future.get());
+			}
+		} finally {
+			executorService.shutdown();
+		}
+	}
+
+	@Test
+	public void testParallelRead() throws Exception {
+		byte[] data = Files.readAllBytes(Paths.get("testdata/MaximumInformation.bcf"));
+		ExecutorService executorService = Executors.newFixedThreadPool(4);
+		try {
+			ReadOptions readOptions = new ReadOptions();
+			readOptions.setExecutor(executorService);
+			BcfFile parallelBcf = BcfFile.read(new ByteArrayInputStream(data), readOptions);
+			Assert.assertEquals(BcfFile.read(data).toJson(), parallelBcf.toJson());
+		} finally {
+			executorService.shutdown();
+		}
+	}
+}
@@ -0,0 +1,73 @@
+package org.opensourcebim.bcf.test;
+
+/******************************************************************************
+ * Copyright (C) 2009-2018  BIMserver.org
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see {@literal<http://www.gnu.org/licenses/>}.
+ *****************************************************************************/
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Assert;
+import org.junit.Test;
+import org.opensourcebim.bcf.BcfException;
+import org.opensourcebim.bcf.BcfFile;
+import org.opensourcebim.bcf.IfcFileReference;
+
+public class TestIfcFileReference {
+	private static final Path PATH = Paths.get("testdata/MaximumInformation.bcf");
+
+	@Test
+	public void testEmbeddedModel() throws BcfException, IOException {
+		BcfFile bcfFile = BcfFile.read(PATH);
+		Assert.assertEquals(1, bcfFile.getIfcFileReferences().size());
+		IfcFileReference ifcFileReference = bcfFile.getIfcFileReferences().get(0);
+		Assert.assertEquals("IfcPile_01.ifc", ifcFileReference.getName());
+		Assert.assertTrue(ifcFileReference.isAvailable());
+		try (InputStream inputStream = ifcFileReference.openStream()) {
+			Assert.assertEquals(ifcFileReference.getSize(), IOUtils.toByteArray(inputStream).length);
+		}
+	}
+
+	@Test
+	public void testModelAfterWritingOpenedFile() throws BcfException, IOException {
+		Path path = Files.createTempFile("bcf", ".bcf");
+		Files.copy(PATH, path, StandardCopyOption.REPLACE_EXISTING);
+		try (BcfFile bcfFile = BcfFile.open(path)) {
+			bcfFile.getTopicFolders().iterator().next().getMarkup().getTopic().setTopicStatus("Closed");
+			bcfFile.write(path);
+			IfcFileReference ifcFileReference = bcfFile.getIfcFileReferences().get(0);
+			try (InputStream inputStream = ifcFileReference.openStream()) {
+				Assert.assertEquals(ifcFileReference.getSize(), IOUtils.toByteArray(inputStream).length);
+			}
+		} finally {
+			Files.delete(path);
+		}
+	}
+
+	@Test
+	public void testStreamedModel() throws BcfException, IOException {
+		try (InputStream inputStream = Files.newInputStream(PATH)) {
+			BcfFile bcfFile = BcfFile.read(inputStream);
+			Assert.assertEquals("IfcPile_01.ifc", bcfFile.getIfcFileReferences().get(0).getName());
+			Assert.assertFalse(bcfFile.getIfcFileReferences().get(0).isAvailable());
+		}
+	}
+}
@@ -0,0 +1,82 @@
+package org.opensourcebim.bcf.test;
+
+/******************************************************************************
+ * Copyright (C) 2009-2018  BIMserver.org
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see {@literal<http://www.gnu.org/licenses/>}.
+ *****************************************************************************/
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.opensourcebim.bcf.BcfException;
+import org.opensourcebim.bcf.BcfFile;
+import org.opensourcebim.bcf.TopicFolder;
+import org.opensourcebim.bcf.markup.Comment;
+import org.opensourcebim.bcf.markup.Topic;
+import org.opensourcebim.bcf.utils.IsoDateTime;
+
+public class TestIsoDateTime {
+	@Test
+	public void testParse() {
+		Assert.assertEquals(OffsetDateTime.of(2015, 6, 21, 12, 0, 0, 0, ZoneOffset.UTC), IsoDateTime.parse("2015-06-21T12:00:00Z"));
+		Assert.assertEquals(OffsetDateTime.of(2017, 5, 22, 7, 51, 0, 42987900, ZoneOffset.UTC), IsoDateTime.parse("2017-05-22T07:51:00.0429879Z"));
+		Assert.assertEquals(OffsetDateTime.of(2014, 6, 2, 14, 33, 14, 0, ZoneOffset.ofHours(2)), IsoDateTime.parse("2014-06-02T14:33:14+0200"));
+		Assert.assertEquals(OffsetDateTime.of(2014, 6, 2, 14, 33, 14, 0, ZoneOffset.ofHoursMinutes(-5, -30)), IsoDateTime.parse(" 2014-06-02T14:33:14-05:30 "));
+		Assert.assertEquals(ZonedDateTime.of(2014, 6, 2, 14, 33, 14, 0, ZoneId.systemDefault()).toOffsetDateTime(), IsoDateTime.parse("2014-06-02T14:33:14"));
+		Assert.assertEquals(OffsetDateTime.of(2014, 6, 3, 0, 0, 0, 0, ZoneOffset.UTC), IsoDateTime.parse("2014-06-02T24:00:00Z"));
+		for (String invalid : new String[] { "", "2014-06-02", "2014-06-02T14:33", "2014-13-02T14:33:14Z", "2014-06-02T14:33:14.Z", "2014-06-02T14:33:14X" }) {
+			try {
+				IsoDateTime.parse(invalid);
+				Assert.fail(invalid);
+			} catch (IllegalArgumentException e) {
+				// expected
+			}
+		}
+	}
+
+	@Test
+	public void testFormat() {
+		Assert.assertEquals("2015-06-21T12:00:00Z", IsoDateTime.format(OffsetDateTime.of(2015, 6, 21, 12, 0, 0, 0, ZoneOffset.UTC)));
+		Assert.assertEquals("2017-05-22T07:51:00.0429879Z", IsoDateTime.format(OffsetDateTime.of(2017, 5, 22, 7, 51, 0, 42987900, ZoneOffset.UTC)));
+		Assert.assertEquals("0099-01-02T03:04:05-05:30", IsoDateTime.format(OffsetDateTime.of(99, 1, 2, 3, 4, 5, 0, ZoneOffset.ofHoursMinutes(-5, -30))));
+		OffsetDateTime dateTime = OffsetDateTime.of(2014, 6, 2, 14, 33, 14, 120000000, ZoneOffset.ofHours(2));
+		Assert.assertEquals(dateTime, IsoDateTime.parse(IsoDateTime.format(dateTime)));
+		Assert.assertEquals(dateTime.toInstant().toEpochMilli(), IsoDateTime.toEpochMilli(dateTime));
+		Assert.assertTrue(dateTime.isEqual(IsoDateTime.ofEpochMilli(IsoDateTime.toEpochMilli(dateTime))));
+	}
+
+	@Test
+	public void testReadWrite() throws BcfException, IOException {
+		BcfFile bcfFile = BcfFile.read(Paths.get("testdata/opmerkingenv1.bcfzip"));
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		bcfFile.write(out);
+		BcfFile readBcfFile = BcfFile.read(out.toByteArray());
+		for (TopicFolder topicFolder : bcfFile.getTopicFolders()) {
+			Topic topic = topicFolder.getMarkup().getTopic();
+			Topic readTopic = readBcfFile.getTopicFolder(topicFolder.getUuid().toString()).getMarkup().getTopic();
+			Assert.assertEquals(topic.getCreationDate(), readTopic.getCreationDate());
+			Comment comment = topicFolder.getMarkup().getComment().get(0);
+			Assert.assertEquals(ZoneOffset.ofHours(2), comment.getDate().getOffset());
+			Assert.assertEquals(comment.getDate(), readBcfFile.getTopicFolder(topicFolder.getUuid().toString()).getMarkup().getComment().get(0).getDate());
+		}
+	}
+}
@@ -0,0 +1,289 @@
+package org.opensourcebim.bcf.test;
+
+/******************************************************************************
+ * Copyright (C) 2009-2018  BIMserver.org
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see {@literal<http://www.gnu.org/licenses/>}.
+ *****************************************************************************/
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Assert;
+import org.junit.Test;
+import org.opensourcebim.bcf.BcfException;
+import org.opensourcebim.bcf.BcfFile;
+import org.opensourcebim.bcf.ReadOptions;
+import org.opensourcebim.bcf.TopicFolder;
+import org.opensourcebim.bcf.markup.Markup;
+
+public class TestOpen {
+	@Test
+	public void testOpen() throws BcfException, IOException {
+		Path path = Paths.get("testdata/opmerkingenv1.bcfzip");
+		BcfFile readBcf = BcfFile.read(path);
+		try (BcfFile openedBcf = BcfFile.open(path)) {
+			Assert.assertEquals(readBcf.getTopicFolders().size(), openedBcf.getTopicFolders().size());
+			for (TopicFolder topicFolder : readBcf.getTopicFolders()) {
+				TopicFolder openedTopicFolder = openedBcf.getTopicFolder(topicFolder.getUuid().toString());
+				Assert.assertEquals(topicFolder.getMarkup().getTopic().getTitle(), openedTopicFolder.getMarkup().getTopic().getTitle());
+				Assert.assertEquals(topicFolder.hasDefaultSnapShot(), openedTopicFolder.hasDefaultSnapShot());
+				Assert.assertArrayEquals(topicFolder.getDefaultSnapShot(), openedTopicFolder.getDefaultSnapShot());
+			}
+		}
+	}
+
+	@Test
+	public void testRelease() throws BcfException, IOException {
+		try (BcfFile openedBcf = BcfFile.open(Paths.get("testdata/opmerkingenv1.bcfzip"))) {
+			for (TopicFolder topicFolder : openedBcf.getTopicFolders()) {
+				Markup markup = topicFolder.getMarkup();
+				Assert.assertSame(markup, topicFolder.getMarkup());
+				topicFolder.release();
+				Assert.assertNotSame(markup, topicFolder.getMarkup());
+				Assert.assertEquals(markup.getTopic().getGuid(), topicFolder.getMarkup().getTopic().getGuid());
+			}
+		}
+	}
+
+	@Test
+	public void testPassThrough() throws BcfException, IOException {
+		Path path = Paths.get("testdata/opmerkingenv1.bcfzip");
+		Path output = Files.createTempFile("bcf", ".bcfzip");
+		TopicFolder changedTopicFolder;
+		try (BcfFile openedBcf = BcfFile.open(path)) {
+			changedTopicFolder = openedBcf.getTopicFolders().iterator().next();
+			changedTopicFolder.getMarkup().getTopic().setTopicStatus("Closed");
+			openedBcf.write(output);
+		}
+		try (ZipFile original = new ZipFile(path.toFile()); ZipFile written = new ZipFile(output.toFile())) {
+			BcfFile readBcf = BcfFile.read(output);
+			Assert.assertEquals("Closed", readBcf.getTopicFolder(changedTopicFolder.getUuid().toString()).getMarkup().getTopic().getTopicStatus());
+			for (ZipEntry zipEntry : Collections.list(original.entries())) {
+				ZipEntry writtenEntry = written.getEntry(zipEntry.getName());
+				boolean changed = zipEntry.getName().equals(changedTopicFolder.getUuid() + "/markup.bcf");
+				Assert.assertEquals(zipEntry.getName(), !changed, zipEntry.getCrc() == writtenEntry.getCrc());
+				if (!changed) {
+					Assert.assertEquals(zipEntry.getCompressedSize(), writtenEntry.getCompressedSize());
+				}
+			}
+		} finally {
+			Files.delete(output);
+		}
+	}
+
+	@Test
+	public void testReadingKeepsEntriesUnmodified() throws BcfException, IOException {
+		Path path = Paths.get("testdata/opmerkingenv1.bcfzip");
+		Path output = Files.createTempFile("bcf", ".bcfzip");
+		try (BcfFile openedBcf = BcfFile.open(path)) {
+			openedBcf.query().filter(topic -> topic.getTitle() != null).list();
+			openedBcf.getComponentIndex();
+			openedBcf.writeJson(new ByteArrayOutputStream());
+			openedBcf.write(output);
+		}
+		try (ZipFile original = new ZipFile(path.toFile()); ZipFile written = new ZipFile(output.toFile())) {
+			for (ZipEntry zipEntry : Collections.list(original.entries())) {
+				if (zipEntry.getName().contains("/")) {
+					ZipEntry writtenEntry = written.getEntry(zipEntry.getName());
+					Assert.assertEquals(zipEntry.getName(), zipEntry.getCrc(), writtenEntry.getCrc());
+					Assert.assertEquals(zipEntry.getName(), zipEntry.getCompressedSize(), writtenEntry.getCompressedSize());
+				}
+			}
+		} finally {
+			Files.delete(output);
+		}
+	}
+
+	@Test
+	public void testWriteToOpenedFile() throws BcfException, IOException {
+		Path path = Files.createTempFile("bcf", ".bcfzip");
+		Files.copy(Paths.get("testdata/opmerkingenv1.bcfzip"), path, StandardCopyOption.REPLACE_EXISTING);
+		try {
+			BcfFile original = BcfFile.read(path);
+			String topicUuid;
+			try (BcfFile openedBcf = BcfFile.open(path)) {
+				TopicFolder topicFolder = openedBcf.getTopicFolders().iterator().next();
+				topicUuid = topicFolder.getUuid().toString();
+				topicFolder.getMarkup().getTopic().setTopicStatus("Closed");
+				openedBcf.write(path);
+				for (TopicFolder openedTopicFolder : openedBcf.getTopicFolders()) {
+					openedTopicFolder.release();
+					Assert.assertArrayEquals(original.getTopicFolder(openedTopicFolder.getUuid().toString()).getDefaultSnapShot(), openedTopicFolder.getDefaultSnapShot());
+				}
+				openedBcf.getTopicFolder(topicUuid).getMarkup().getTopic().setTitle("Renamed");
+				openedBcf.update();
+			}
+			BcfFile readBcf = BcfFile.read(path);
+			Assert.assertEquals(original.getTopicFolders().size(), readBcf.getTopicFolders().size());
+			Assert.assertEquals("Closed", readBcf.getTopicFolder(topicUuid).getMarkup().getTopic().getTopicStatus());
+			Assert.assertEquals("Renamed", readBcf.getTopicFolder(topicUuid).getMarkup().getTopic().getTitle());
+		} finally {
+			Files.delete(path);
+		}
+	}
+
+	@Test
+	public void testWriteKeepsEntriesThatAreNotRead() throws BcfException, IOException {
+		Path path = Files.createTempFile("bcf", ".bcf");
+		Files.copy(Paths.get("testdata/MaximumInformation.bcf"), path, StandardCopyOption.REPLACE_EXISTING);
+		try {
+			String changedEntry;
+			try (BcfFile openedBcf = BcfFile.open(path)) {
+				TopicFolder topicFolder = openedBcf.getTopicFolders().iterator().next();
+				topicFolder.getMarkup().getTopic().setTopicStatus("Closed");
+				changedEntry = topicFolder.getUuid() + "/markup.bcf";
+				openedBcf.write(path);
+			}
+			try (ZipFile original = new ZipFile("testdata/MaximumInformation.bcf"); ZipFile written = new ZipFile(path.toFile())) {
+				Assert.assertEquals(original.size(), written.size());
+				for (ZipEntry zipEntry : Collections.list(original.entries())) {
+					ZipEntry writtenEntry = written.getEntry(zipEntry.getName());
+					Assert.assertNotNull(zipEntry.getName(), writtenEntry);
+					if (!zipEntry.getName().equals(changedEntry) && !zipEntry.getName().equals("bcf.version") && !zipEntry.getName().equals("project.bcfp")) {
+						Assert.assertEquals(zipEntry.getName(), zipEntry.getCrc(), writtenEntry.getCrc());
+					}
+				}
+			}
+		} finally {
+			Files.delete(path);
+		}
+	}
+
+	@Test
+	public void testUpdate() throws BcfException, IOException {
+		Path path = Files.createTempFile("bcf", ".bcfzip");
+		Files.copy(Paths.get("testdata/opmerkingenv1.bcfzip"), path, StandardCopyOption.REPLACE_EXISTING);
+		try {
+			long originalSize = Files.size(path);
+			String topicUuid;
+			try (BcfFile openedBcf = BcfFile.open(path)) {
+				TopicFolder topicFolder = openedBcf.getTopicFolders().iterator().next();
+				topicUuid = topicFolder.getUuid().toString();
+				topicFolder.getMarkup().getTopic().setTopicStatus("Closed");
+				openedBcf.update();
+				Assert.assertEquals("Closed", openedBcf.getTopicFolder(topicUuid).getMarkup().getTopic().getTopicStatus());
+			}
+			Assert.assertTrue(Files.size(path) - originalSize < 10000);
+			Assert.assertEquals("Closed", BcfFile.read(path).getTopicFolder(topicUuid).getMarkup().getTopic().getTopicStatus());
+			try (BcfFile openedBcf = BcfFile.open(path)) {
+				Assert.assertEquals("Closed", openedBcf.getTopicFolder(topicUuid).getMarkup().getTopic().getTopicStatus());
+			}
+		} finally {
+			Files.delete(path);
+		}
+	}
+
+	@Test
+	public void testUpdateKeepsPartsThatWereNotRead() throws BcfException, IOException {
+		for (String fileName : new String[] { "testdata/opmerkingenv1.bcfzip", "testdata/MaximumInformation.bcf" }) {
+			Path path = Files.createTempFile("bcf", ".bcf");
+			Files.copy(Paths.get(fileName), path, StandardCopyOption.REPLACE_EXISTING);
+			try {
+				String changedEntry;
+				try (BcfFile openedBcf = BcfFile.open(path, ReadOptions.markupsOnly())) {
+					for (TopicFolder topicFolder : openedBcf.getTopicFolders()) {
+						topicFolder.getMarkup().getTopic().setTopicStatus("Closed");
+					}
+					changedEntry = openedBcf.getTopicFolders().iterator().next().getUuid() + "/markup.bcf";
+					openedBcf.update();
+				}
+				try (ZipFile original = new ZipFile(fileName); ZipFile updated = new ZipFile(path.toFile())) {
+					Assert.assertEquals(original.size(), updated.size());
+					for (ZipEntry zipEntry : Collections.list(original.entries())) {
+						ZipEntry updatedEntry = updated.getEntry(zipEntry.getName());
+						if (!zipEntry.getName().endsWith(".bcf")) {
+							Assert.assertEquals(zipEntry.getName(), zipEntry.getCrc(), updatedEntry.getCrc());
+						}
+					}
+					Assert.assertNotEquals(original.getEntry(changedEntry).getCrc(), updated.getEntry(changedEntry).getCrc());
+				}
+			} finally {
+				Files.delete(path);
+			}
+		}
+	}
+
+	@Test
+	public void testWriteCopiesPartsThatWereNotRead() throws BcfException, IOException {
+		Path path = Paths.get("testdata/opmerkingenv1.bcfzip");
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try (BcfFile openedBcf = BcfFile.open(path, ReadOptions.markupsOnly())) {
+			openedBcf.write(out);
+		}
+		BcfFile original = BcfFile.read(path);
+		BcfFile written = BcfFile.read(out.toByteArray());
+		for (TopicFolder topicFolder : original.getTopicFolders()) {
+			TopicFolder writtenTopicFolder = written.getTopicFolder(topicFolder.getUuid().toString());
+			Assert.assertEquals(topicFolder.getViewpointFileNames(), writtenTopicFolder.getViewpointFileNames());
+			Assert.assertArrayEquals(topicFolder.getDefaultSnapShot(), writtenTopicFolder.getDefaultSnapShot());
+		}
+	}
+
+	@Test
+	public void testRepeatedUpdate() throws BcfException, IOException {
+		Path path = Files.createTempFile("bcf", ".bcf");
+		Files.copy(Paths.get("testdata/MaximumInformation.bcf"), path, StandardCopyOption.REPLACE_EXISTING);
+		try {
+			long originalSize = Files.size(path);
+			try (BcfFile openedBcf = BcfFile.open(path)) {
+				openedBcf.getProject().getName();
+				openedBcf.update();
+				Assert.assertEquals(originalSize, Files.size(path));
+
+				openedBcf.getTopicFolders().iterator().next().getMarkup().getTopic().setTopicStatus("Closed");
+				openedBcf.update();
+				long updatedSize = Files.size(path);
+				Assert.assertTrue(updatedSize > originalSize);
+				openedBcf.update();
+				Assert.assertEquals(updatedSize, Files.size(path));
+
+				openedBcf.getProject().setName("Renamed");
+				openedBcf.update();
+			}
+			try (ZipFile zipFile = new ZipFile(path.toFile())) {
+				String project = IOUtils.toString(zipFile.getInputStream(zipFile.getEntry("project.bcfp")), StandardCharsets.UTF_8);
+				Assert.assertTrue(project.contains("Renamed"));
+				Assert.assertTrue(project.contains("<ExtensionSchema>extensions.xsd</ExtensionSchema>"));
+			}
+		} finally {
+			Files.delete(path);
+		}
+	}
+
+	@Test
+	public void testMarkupWithoutComments() throws BcfException, IOException {
+		Path path = Paths.get("testdata/MaximumInformation.bcf");
+		ReadOptions readOptions = new ReadOptions();
+		readOptions.setReadComments(false);
+		try (BcfFile openedBcf = BcfFile.open(path, readOptions)) {
+			openedBcf.query().list();
+			openedBcf.write(new ByteArrayOutputStream());
+			openedBcf.getTopicFolders().iterator().next().getMarkup().getTopic().setTopicStatus("Closed");
+			openedBcf.write(new ByteArrayOutputStream());
+			Assert.fail("A markup read without its comments should not be written");
+		} catch (BcfException e) {
+			Assert.assertTrue(e.getMessage().contains("without its comments"));
+		}
+	}
+}
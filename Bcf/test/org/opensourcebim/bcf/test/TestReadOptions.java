@@ -0,0 +1,127 @@
+package org.opensourcebim.bcf.test;
+
+/******************************************************************************
+ * Copyright (C) 2009-2018  BIMserver.org
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see {@literal<http://www.gnu.org/licenses/>}.
+ *****************************************************************************/
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.UUID;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.opensourcebim.bcf.BcfException;
+import org.opensourcebim.bcf.BcfFile;
+import org.opensourcebim.bcf.BcfReader;
+import org.opensourcebim.bcf.ReadOptions;
+import org.opensourcebim.bcf.TopicEvent;
+import org.opensourcebim.bcf.TopicFolder;
+
+public class TestReadOptions {
+	private static final Path PATH = Paths.get("testdata/MaximumInformation.bcf");
+	private static final UUID TOPIC = UUID.fromString("7ddc3ef0-0ab7-43f1-918a-45e38b42369c");
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void testDefaultIsReadOnly() {
+		ReadOptions.DEFAULT.setReadComments(false);
+	}
+
+	@Test
+	public void testMarkupsOnly() throws BcfException, IOException {
+		assertMarkupsOnly(BcfFile.read(PATH, ReadOptions.markupsOnly()));
+		try (InputStream inputStream = Files.newInputStream(PATH)) {
+			assertMarkupsOnly(BcfFile.read(inputStream, ReadOptions.markupsOnly()));
+		}
+		try (BcfFile bcfFile = BcfFile.open(PATH, ReadOptions.markupsOnly())) {
+			assertMarkupsOnly(bcfFile);
+		}
+		try (BcfReader bcfReader = BcfReader.stream(Files.newInputStream(PATH), ReadOptions.markupsOnly())) {
+			while (bcfReader.hasNext()) {
+				Assert.assertEquals(TopicEvent.Type.MARKUP, bcfReader.next().getType());
+			}
+		}
+	}
+
+	private void assertMarkupsOnly(BcfFile bcfFile) {
+		Assert.assertFalse(bcfFile.getTopicFolders().isEmpty());
+		for (TopicFolder topicFolder : bcfFile.getTopicFolders()) {
+			Assert.assertNotNull(topicFolder.getMarkup().getTopic().getTitle());
+			Assert.assertTrue(topicFolder.getViewpointFileNames().isEmpty());
+			Assert.assertTrue(topicFolder.getSnapshotFileNames().isEmpty());
+		}
+	}
+
+	@Test
+	public void testSkipComments() throws BcfException, IOException {
+		ReadOptions readOptions = new ReadOptions();
+		readOptions.setReadComments(false);
+		BcfFile full = BcfFile.read(PATH);
+		BcfFile read = BcfFile.read(PATH, readOptions);
+		Assert.assertFalse(full.getTopicFolder(TOPIC.toString()).getMarkup().getComment().isEmpty());
+		for (TopicFolder topicFolder : read.getTopicFolders()) {
+			TopicFolder fullTopicFolder = full.getTopicFolder(topicFolder.getUuid().toString());
+			Assert.assertTrue(topicFolder.getMarkup().getComment().isEmpty());
+			Assert.assertEquals(fullTopicFolder.getMarkup().getTopic().getTitle(), topicFolder.getMarkup().getTopic().getTitle());
+			Assert.assertEquals(fullTopicFolder.getMarkup().getViewpoints().size(), topicFolder.getMarkup().getViewpoints().size());
+		}
+		try (BcfFile bcfFile = BcfFile.open(PATH, readOptions)) {
+			Assert.assertTrue(bcfFile.getTopicFolder(TOPIC.toString()).getMarkup().getComment().isEmpty());
+		}
+	}
+
+	@Test
+	public void testTopicUuids() throws BcfException, IOException {
+		ReadOptions readOptions = new ReadOptions();
+		readOptions.setTopicUuids(Collections.singleton(TOPIC));
+		BcfFile bcfFile = BcfFile.read(PATH, readOptions);
+		Assert.assertEquals(1, bcfFile.getTopicFolders().size());
+		Assert.assertEquals(TOPIC, bcfFile.getTopicFolders().iterator().next().getUuid());
+		Assert.assertNotNull(bcfFile.getProject());
+
+		readOptions.setTopicUuids(null);
+		readOptions.setEntryFilter(name -> !name.endsWith(".bcfv"));
+		try (BcfReader bcfReader = BcfReader.stream(Files.newInputStream(PATH), readOptions)) {
+			while (bcfReader.hasNext()) {
+				Assert.assertNotEquals(TopicEvent.Type.VIEWPOINT, bcfReader.next().getType());
+			}
+		}
+	}
+
+	@Test
+	public void testImages() throws BcfException, IOException {
+		ReadOptions readOptions = new ReadOptions();
+		readOptions.setReadBitmaps(false);
+		Assert.assertEquals(new HashSet<>(Arrays.asList("Snapshot_4ab7514b-b216-4d56-98d2-45cf8500ff5a.png", "Snapshot_9a4a1878-ecbd-4916-83a8-dad82e560231.png", "Snapshot_fc4019d7-365e-47f3-b6d0-b39fc48f15fc.png")), BcfFile.read(PATH, readOptions).getTopicFolder(TOPIC.toString()).getSnapshotFileNames());
+		readOptions = new ReadOptions();
+		readOptions.setReadSnapshots(false);
+		Assert.assertEquals(new HashSet<>(Arrays.asList("bitmap.png", "tux.png")), BcfFile.read(PATH, readOptions).getTopicFolder(TOPIC.toString()).getSnapshotFileNames());
+
+		BcfFile bcfFile = new BcfFile();
+		TopicFolder topicFolder = bcfFile.createTopicFolder();
+		topicFolder.createTopic().setTitle("Photo");
+		topicFolder.addSnapShot("photo.jpg", new byte[] { 1, 2, 3 });
+		byte[] data = bcfFile.toBytes();
+		Assert.assertArrayEquals(new byte[] { 1, 2, 3 }, BcfFile.read(data).getTopicFolder(topicFolder.getUuid().toString()).getSnapshot("photo.jpg"));
+		Assert.assertTrue(BcfFile.read(new ByteArrayInputStream(data), ReadOptions.markupsOnly()).getTopicFolder(topicFolder.getUuid().toString()).getSnapshotFileNames().isEmpty());
+	}
+}
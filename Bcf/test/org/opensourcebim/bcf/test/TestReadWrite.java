@@ -20,12 +20,9 @@ package org.opensourcebim.bcf.test;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.GregorianCalendar;
+import java.time.OffsetDateTime;
 import java.util.UUID;
 
-import javax.xml.datatype.DatatypeConfigurationException;
-import javax.xml.datatype.DatatypeFactory;
-
 import org.junit.Assert;
 import org.junit.Test;
 import org.opensourcebim.bcf.BcfException;
@@ -38,7 +35,7 @@ import org.opensourcebim.bcf.markup.Topic;
 
 public class TestReadWrite {
 	@Test
-	public void testReadWrite() throws DatatypeConfigurationException, BcfValidationException, BcfException, IOException {
+	public void testReadWrite() throws BcfValidationException, BcfException, IOException {
 		BcfFile bcfFile = new BcfFile();
 		
 		bcfFile.getProject().setProjectId("ProjectId-Test");
@@ -54,8 +51,8 @@ public class TestReadWrite {
 		file.setIsExternal(true);
 		file.setReference("http://bimserver.org/test");
 		
-		GregorianCalendar now = new GregorianCalendar();
-		file.setDate(DatatypeFactory.newInstance().newXMLGregorianCalendar(now));
+		OffsetDateTime now = OffsetDateTime.now();
+		file.setDate(now);
 		
 		header.getFile().add(file);
 		
@@ -63,7 +60,7 @@ public class TestReadWrite {
 		Topic topic = topicFolder.createTopic();
 		topic.setGuid(UUID.randomUUID().toString());
 		topic.setTitle("test");
-		topic.setCreationDate(DatatypeFactory.newInstance().newXMLGregorianCalendar(now));
+		topic.setCreationDate(now);
 		topic.setCreationAuthor("Ruben");
 		
 		bcfFile.validate();
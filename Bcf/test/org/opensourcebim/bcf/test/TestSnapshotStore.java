@@ -0,0 +1,67 @@
+package org.opensourcebim.bcf.test;
+
+/******************************************************************************
+ * Copyright (C) 2009-2018  BIMserver.org
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see {@literal<http://www.gnu.org/licenses/>}.
+ *****************************************************************************/
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.opensourcebim.bcf.BcfException;
+import org.opensourcebim.bcf.BcfFile;
+import org.opensourcebim.bcf.SnapshotStore;
+import org.opensourcebim.bcf.TopicFolder;
+
+public class TestSnapshotStore {
+	@Test
+	public void testIntern() {
+		SnapshotStore snapshotStore = new SnapshotStore();
+		byte[] data = new byte[] { 1, 2, 3 };
+		Assert.assertSame(data, snapshotStore.intern(data));
+		Assert.assertSame(data, snapshotStore.intern(new byte[] { 1, 2, 3 }));
+		Assert.assertNotSame(data, snapshotStore.intern(new byte[] { 1, 2, 4 }));
+		Assert.assertEquals(2, snapshotStore.size());
+	}
+
+	@Test
+	public void testSharedAcrossFiles() throws BcfException, IOException {
+		BcfFile first = BcfFile.read(Paths.get("testdata/opmerkingenv1.bcfzip"));
+		int size = SnapshotStore.SHARED.size();
+		BcfFile second = BcfFile.read(Paths.get("testdata/opmerkingenv1.bcfzip"));
+		Assert.assertTrue(SnapshotStore.SHARED.size() <= size);
+		for (TopicFolder topicFolder : first.getTopicFolders()) {
+			if (topicFolder.hasDefaultSnapShot()) {
+				Assert.assertArrayEquals(topicFolder.getDefaultSnapShot(), second.getTopicFolder(topicFolder.getUuid().toString()).getDefaultSnapShot());
+			}
+		}
+	}
+
+	@Test
+	public void testNotModifiedThroughCallerArrays() {
+		BcfFile bcfFile = new BcfFile();
+		byte[] data = new byte[] { 1, 2, 3 };
+		TopicFolder first = bcfFile.createTopicFolder();
+		first.setDefaultSnapShot(data);
+		TopicFolder second = bcfFile.createTopicFolder();
+		second.setDefaultSnapShot(data);
+		data[0] = 9;
+		first.getDefaultSnapShot()[1] = 9;
+		Assert.assertArrayEquals(new byte[] { 1, 2, 3 }, first.getDefaultSnapShot());
+		Assert.assertArrayEquals(new byte[] { 1, 2, 3 }, second.getDefaultSnapShot());
+	}
+}
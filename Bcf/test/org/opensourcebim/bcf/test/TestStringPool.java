@@ -0,0 +1,70 @@
+package org.opensourcebim.bcf.test;
+
+/******************************************************************************
+ * Copyright (C) 2009-2018  BIMserver.org
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see {@literal<http://www.gnu.org/licenses/>}.
+ *****************************************************************************/
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.opensourcebim.bcf.BcfException;
+import org.opensourcebim.bcf.BcfFile;
+import org.opensourcebim.bcf.ReadOptions;
+import org.opensourcebim.bcf.StringPool;
+import org.opensourcebim.bcf.TopicFolder;
+
+public class TestStringPool {
+	@Test
+	public void testInternAcrossFiles() throws BcfException, IOException {
+		Path path = Paths.get("testdata/opmerkingenv1.bcfzip");
+		ReadOptions readOptions = new ReadOptions();
+		readOptions.setStringPool(new StringPool());
+		BcfFile first = read(path, readOptions);
+		try (BcfFile second = BcfFile.open(path, readOptions)) {
+			for (TopicFolder topicFolder : first.getTopicFolders()) {
+				TopicFolder other = second.getTopicFolder(topicFolder.getUuid().toString());
+				String filename = topicFolder.getMarkup().getHeader().getFile().get(0).getFilename();
+				Assert.assertNotNull(filename);
+				Assert.assertSame(filename, other.getMarkup().getHeader().getFile().get(0).getFilename());
+				Assert.assertSame(filename, first.getTopicFolders().iterator().next().getMarkup().getHeader().getFile().get(0).getFilename());
+				Assert.assertSame(topicFolder.getMarkup().getComment().get(0).getAuthor(), other.getMarkup().getComment().get(0).getAuthor());
+			}
+		}
+	}
+
+	@Test
+	public void testBounded() {
+		StringPool stringPool = new StringPool(1);
+		String first = new String("first");
+		Assert.assertSame(first, stringPool.intern(first));
+		Assert.assertSame(first, stringPool.intern(new String("first")));
+		String second = new String("second");
+		Assert.assertSame(second, stringPool.intern(second));
+		Assert.assertNotSame(second, stringPool.intern(new String("second")));
+		Assert.assertEquals(1, stringPool.size());
+	}
+
+	private static BcfFile read(Path path, ReadOptions readOptions) throws BcfException, IOException {
+		try (InputStream inputStream = Files.newInputStream(path)) {
+			return BcfFile.read(inputStream, readOptions);
+		}
+	}
+}
@@ -0,0 +1,117 @@
+package org.opensourcebim.bcf.test;
+
+/******************************************************************************
+ * Copyright (C) 2009-2018  BIMserver.org
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see {@literal<http://www.gnu.org/licenses/>}.
+ *****************************************************************************/
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.opensourcebim.bcf.BcfException;
+import org.opensourcebim.bcf.BcfFile;
+import org.opensourcebim.bcf.TopicFolder;
+import org.opensourcebim.bcf.TopicIndex;
+import org.opensourcebim.bcf.TopicSummary;
+import org.opensourcebim.bcf.markup.Topic;
+
+public class TestTopicIndex {
+	@Test
+	public void testListWithoutCache() throws BcfException, IOException {
+		Path directory = Files.createTempDirectory("bcf");
+		Path path = directory.resolve("MaximumInformation.bcf");
+		Files.copy(Paths.get("testdata/MaximumInformation.bcf"), path);
+		try {
+			Assert.assertEquals(BcfFile.read(path).getTopicFolders().size(), BcfFile.listTopics(path).size());
+			try (Stream<Path> files = Files.list(directory)) {
+				Assert.assertEquals(1, files.count());
+			}
+		} finally {
+			Files.delete(path);
+			Files.delete(directory);
+		}
+	}
+
+	@Test
+	public void testSidecar() throws BcfException, IOException {
+		Path path = Files.createTempFile("bcf", ".bcf");
+		Path cacheDirectory = Files.createTempDirectory("bcfcache");
+		Files.copy(Paths.get("testdata/MaximumInformation.bcf"), path, StandardCopyOption.REPLACE_EXISTING);
+		try {
+			List<TopicSummary> topics = BcfFile.listTopics(path, cacheDirectory);
+			Assert.assertTrue(Files.exists(TopicIndex.getSidecar(path, cacheDirectory)));
+			BcfFile readBcf = BcfFile.read(path);
+			Assert.assertEquals(readBcf.getTopicFolders().size(), topics.size());
+			for (TopicSummary summary : topics) {
+				Topic topic = readBcf.getTopicFolder(summary.getTopicFolderUuid().toString()).getMarkup().getTopic();
+				Assert.assertEquals(topic.getGuid(), summary.getGuid());
+				Assert.assertEquals(topic.getTitle(), summary.getTitle());
+				Assert.assertEquals(topic.getTopicStatus(), summary.getTopicStatus());
+				Assert.assertEquals(topic.getAssignedTo(), summary.getAssignedTo());
+				Assert.assertEquals(topic.getLabels(), summary.getLabels());
+				Assert.assertEquals(topic.getCreationDate().toInstant().toEpochMilli(), summary.getCreationDate().longValue());
+			}
+			Assert.assertEquals(topics.get(0).getTitle(), BcfFile.listTopics(path, cacheDirectory).get(0).getTitle());
+
+			try (BcfFile openedBcf = BcfFile.open(path)) {
+				TopicFolder topicFolder = openedBcf.getTopicFolder(topics.get(0).getTopicFolderUuid().toString());
+				topicFolder.getMarkup().getTopic().setTitle("Changed");
+				openedBcf.update();
+			}
+			for (TopicSummary summary : BcfFile.listTopics(path, cacheDirectory)) {
+				if (summary.getTopicFolderUuid().equals(topics.get(0).getTopicFolderUuid())) {
+					Assert.assertEquals("Changed", summary.getTitle());
+				}
+			}
+		} finally {
+			Files.deleteIfExists(TopicIndex.getSidecar(path, cacheDirectory));
+			Files.delete(cacheDirectory);
+			Files.delete(path);
+		}
+	}
+
+	@Test
+	public void testCorruptSidecar() throws BcfException, IOException {
+		Path path = Files.createTempFile("bcf", ".bcf");
+		Path cacheDirectory = Files.createTempDirectory("bcfcache");
+		Files.copy(Paths.get("testdata/MaximumInformation.bcf"), path, StandardCopyOption.REPLACE_EXISTING);
+		try {
+			int size = BcfFile.listTopics(path, cacheDirectory).size();
+			Path sidecar = TopicIndex.getSidecar(path, cacheDirectory);
+			byte[] bytes = Files.readAllBytes(sidecar);
+			for (int i = 44; i < 48; i++) {
+				bytes[i] = (byte) 0xff;
+			}
+			Files.write(sidecar, bytes);
+			Assert.assertEquals(size, BcfFile.listTopics(path, cacheDirectory).size());
+
+			// A string count that would not fit in memory
+			bytes[44] = 0x7f;
+			Files.write(sidecar, bytes);
+			Assert.assertEquals(size, BcfFile.listTopics(path, cacheDirectory).size());
+		} finally {
+			Files.deleteIfExists(TopicIndex.getSidecar(path, cacheDirectory));
+			Files.delete(cacheDirectory);
+			Files.delete(path);
+		}
+	}
+}
@@ -0,0 +1,64 @@
+package org.opensourcebim.bcf.test;
+
+/******************************************************************************
+ * Copyright (C) 2009-2018  BIMserver.org
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see {@literal<http://www.gnu.org/licenses/>}.
+ *****************************************************************************/
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Comparator;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.opensourcebim.bcf.BcfFile;
+import org.opensourcebim.bcf.TopicFolder;
+import org.opensourcebim.bcf.markup.Topic;
+
+public class TestTopicQuery {
+	@Test
+	public void testQuery() {
+		BcfFile bcfFile = new BcfFile();
+		for (int i = 0; i < 100; i++) {
+			Topic topic = bcfFile.createTopicFolder().createTopic();
+			topic.setTitle("Topic " + i);
+			topic.setTopicStatus(i % 2 == 0 ? "Open" : "Closed");
+			topic.setAssignedTo("user" + (i % 5));
+			topic.getLabels().add("label" + (i % 3));
+			topic.setDueDate(OffsetDateTime.of(2024, 1, 1 + i % 30, 0, 0, 0, 0, ZoneOffset.UTC));
+		}
+
+		Assert.assertEquals(50, bcfFile.query().topicStatus("Open").count());
+		Assert.assertEquals(100, bcfFile.query().topicStatus("Open", "Closed").count());
+		Assert.assertEquals(10, bcfFile.query().topicStatus("Open").assignedTo("user0").count());
+		Assert.assertEquals(34, bcfFile.query().label("label0").count());
+		long from = OffsetDateTime.of(2024, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC).toInstant().toEpochMilli();
+		long to = OffsetDateTime.of(2024, 1, 2, 0, 0, 0, 0, ZoneOffset.UTC).toInstant().toEpochMilli();
+		Assert.assertEquals(8, bcfFile.query().dueBetween(from, to).count());
+
+		List<TopicFolder> page = bcfFile.query().topicStatus("Closed").sortBy(Comparator.comparing(Topic::getTitle)).page(2, 3).list();
+		Assert.assertEquals(3, page.size());
+		Assert.assertEquals("Topic 13", page.get(0).getMarkup().getTopic().getTitle());
+
+		bcfFile.createTopicFolder().createTopic().setTopicStatus("Open");
+		Assert.assertEquals(51, bcfFile.query().topicStatus("Open").count());
+
+		page.get(0).getMarkup().getTopic().setTopicStatus("Open");
+		bcfFile.invalidateIndexes();
+		Assert.assertEquals(52, bcfFile.query().topicStatus("Open").count());
+		Assert.assertEquals(1, bcfFile.query().topicStatus("Open").filter(topic -> "Topic 13".equals(topic.getTitle())).count());
+	}
+}
@@ -0,0 +1,57 @@
+package org.opensourcebim.bcf.test;
+
+/******************************************************************************
+ * Copyright (C) 2009-2018  BIMserver.org
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see {@literal<http://www.gnu.org/licenses/>}.
+ *****************************************************************************/
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Paths;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.opensourcebim.bcf.BcfException;
+import org.opensourcebim.bcf.BcfFile;
+import org.opensourcebim.bcf.TopicFolder;
+import org.opensourcebim.bcf.markup.ViewPoint;
+
+public class TestViewpoints {
+	@Test
+	public void testViewpointsRoundTrip() throws BcfException, IOException {
+		try (BcfFile openedBcf = BcfFile.open(Paths.get("testdata/MaximumInformation.bcf"))) {
+			TopicFolder topicFolder = openedBcf.getTopicFolder("7ddc3ef0-0ab7-43f1-918a-45e38b42369c");
+			Assert.assertEquals(3, topicFolder.getViewpointFileNames().size());
+			Assert.assertFalse(topicFolder.hasDefaultSnapShot());
+			for (ViewPoint viewPoint : topicFolder.getMarkup().getViewpoints()) {
+				Assert.assertNotNull(viewPoint.getViewpoint(), topicFolder.getVisualizationInfo(viewPoint));
+				Assert.assertSame(topicFolder.getVisualizationInfo(viewPoint), topicFolder.getVisualizationInfoByGuid(viewPoint.getGuid()));
+			}
+
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			openedBcf.write(out);
+			BcfFile readBcf = BcfFile.read(out.toByteArray());
+			TopicFolder readTopicFolder = readBcf.getTopicFolder(topicFolder.getUuid().toString());
+			Assert.assertEquals(topicFolder.getViewpointFileNames(), readTopicFolder.getViewpointFileNames());
+			Assert.assertEquals(topicFolder.getSnapshotFileNames(), readTopicFolder.getSnapshotFileNames());
+			for (String fileName : topicFolder.getViewpointFileNames()) {
+				Assert.assertEquals(topicFolder.getVisualizationInfo(fileName).getGuid(), readTopicFolder.getVisualizationInfo(fileName).getGuid());
+			}
+			for (String fileName : topicFolder.getSnapshotFileNames()) {
+				Assert.assertArrayEquals(topicFolder.getSnapshot(fileName), readTopicFolder.getSnapshot(fileName));
+			}
+		}
+	}
+}
@@ -0,0 +1,168 @@
+package org.opensourcebim.bcf.test;
+
+/******************************************************************************
+ * Copyright (C) 2009-2018  BIMserver.org
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see {@literal<http://www.gnu.org/licenses/>}.
+ *****************************************************************************/
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.UUID;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Assert;
+import org.junit.Test;
+import org.opensourcebim.bcf.BcfException;
+import org.opensourcebim.bcf.BcfFile;
+import org.opensourcebim.bcf.BcfReader;
+import org.opensourcebim.bcf.JsonExportOptions;
+import org.opensourcebim.bcf.ReadOptions;
+import org.opensourcebim.bcf.TopicFolder;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+public class TestWriteJson {
+	private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+	@Test
+	public void testWriteJson() throws BcfException, IOException {
+		assertSameJson(Paths.get("testdata/MaximumInformation.bcf"));
+		assertSameJson(Paths.get("testdata/opmerkingenv1.bcfzip"));
+	}
+
+	private void assertSameJson(Path path) throws BcfException, IOException {
+		BcfFile bcfFile = BcfFile.read(path);
+		JsonNode expected = bcfFile.toJson();
+		Assert.assertTrue(expected.get("topics").size() > 0);
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		bcfFile.writeJson(out);
+		Assert.assertEquals(expected, OBJECT_MAPPER.readTree(out.toByteArray()));
+
+		out.reset();
+		try (JsonGenerator generator = OBJECT_MAPPER.getFactory().createGenerator(out)) {
+			generator.writeStartArray();
+			bcfFile.writeJson(generator);
+			generator.writeEndArray();
+		}
+		Assert.assertEquals(expected, OBJECT_MAPPER.readTree(out.toByteArray()).get(0));
+
+		out.reset();
+		try (InputStream inputStream = Files.newInputStream(path); BcfReader bcfReader = BcfReader.stream(inputStream, new ReadOptions(false))) {
+			bcfReader.writeJson(out);
+		}
+		Assert.assertEquals(expected, OBJECT_MAPPER.readTree(out.toByteArray()));
+	}
+
+	@Test
+	public void testInterleavedEntries() throws BcfException, IOException {
+		ByteArrayOutputStream interleaved = new ByteArrayOutputStream();
+		try (ZipFile zipFile = new ZipFile("testdata/MaximumInformation.bcf"); ZipOutputStream zipOutputStream = new ZipOutputStream(interleaved)) {
+			List<ZipEntry> entries = new ArrayList<>(Collections.list(zipFile.entries()));
+			entries.sort(Comparator.comparing(entry -> !entry.getName().endsWith(".bcf")));
+			for (ZipEntry entry : entries) {
+				zipOutputStream.putNextEntry(new ZipEntry(entry.getName()));
+				try (InputStream inputStream = zipFile.getInputStream(entry)) {
+					IOUtils.copy(inputStream, zipOutputStream);
+				}
+			}
+		}
+		try (BcfReader bcfReader = BcfReader.stream(new ByteArrayInputStream(interleaved.toByteArray()))) {
+			bcfReader.writeJson(new ByteArrayOutputStream());
+			Assert.fail("Topic folders that are not stored together should not be converted");
+		} catch (IllegalStateException e) {
+			Assert.assertTrue(e.getMessage().contains("not stored together"));
+		}
+	}
+
+	@Test
+	public void testProjectionAndPaging() throws BcfException, IOException {
+		Path path = Paths.get("testdata/opmerkingenv1.bcfzip");
+		BcfFile bcfFile = BcfFile.read(path);
+		List<String> allUuids = new ArrayList<>();
+		bcfFile.toJson().get("topics").fieldNames().forEachRemaining(allUuids::add);
+
+		JsonExportOptions options = JsonExportOptions.fields("guid", "title", "topicStatus", "modifiedDate");
+		options.setLimit(5);
+		List<String> pagedUuids = new ArrayList<>();
+		List<String> streamedUuids = new ArrayList<>();
+		while (true) {
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			bcfFile.writeJson(out, options);
+			JsonNode page = OBJECT_MAPPER.readTree(out.toByteArray());
+			Assert.assertTrue(page.get("topics").size() <= 5);
+			for (JsonNode topicFolderNode : page.get("topics")) {
+				pagedUuids.add(topicFolderNode.get("uuid").asText());
+				Assert.assertNull(topicFolderNode.get("header"));
+				Iterator<String> fieldNames = topicFolderNode.get("topic").fieldNames();
+				while (fieldNames.hasNext()) {
+					Assert.assertTrue(options.getFields().contains(fieldNames.next()));
+				}
+				Assert.assertNotNull(topicFolderNode.get("topic").get("title"));
+			}
+
+			out.reset();
+			try (InputStream inputStream = Files.newInputStream(path); BcfReader bcfReader = BcfReader.stream(inputStream, new ReadOptions(false))) {
+				bcfReader.writeJson(out, options);
+			}
+			OBJECT_MAPPER.readTree(out.toByteArray()).get("topics").fieldNames().forEachRemaining(streamedUuids::add);
+
+			JsonNode nextCursor = page.get("nextCursor");
+			if (nextCursor == null) {
+				break;
+			}
+			options.setAfter(UUID.fromString(nextCursor.asText()));
+		}
+		Assert.assertEquals(allUuids, pagedUuids);
+		Assert.assertEquals(allUuids, streamedUuids);
+	}
+
+	@Test
+	public void testFromJson() throws BcfException, IOException {
+		for (String fileName : new String[] { "testdata/MaximumInformation.bcf", "testdata/opmerkingenv1.bcfzip" }) {
+			BcfFile bcfFile = BcfFile.read(Paths.get(fileName));
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			bcfFile.writeJson(out);
+			BcfFile readBcfFile = BcfFile.fromJson(new ByteArrayInputStream(out.toByteArray()));
+			Assert.assertEquals(bcfFile.toJson().without("topics"), readBcfFile.toJson().without("topics"));
+			for (TopicFolder topicFolder : bcfFile.getTopicFolders()) {
+				JsonNode expected = bcfFile.toJson().get("topics").get(topicFolder.getUuid().toString());
+				JsonNode actual = readBcfFile.toJson().get("topics").get(topicFolder.getUuid().toString());
+				Assert.assertEquals(((ObjectNode) expected.get("topic")).without("defaultSnapshot"), actual.get("topic"));
+				Assert.assertEquals(expected.get("header"), actual.get("header"));
+			}
+
+			ByteArrayOutputStream bcf = new ByteArrayOutputStream();
+			readBcfFile.write(bcf);
+			Assert.assertEquals(readBcfFile.toJson().get("topics"), BcfFile.read(bcf.toByteArray()).toJson().get("topics"));
+		}
+	}
+}